@@ -0,0 +1,99 @@
+package simplesynth;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+Measures the time a voice takes to apply each stage of its envelope to a sample.
+The voice plays an oscillator which renders a constant, so only the envelope is measured. 
+The stages are made as long as the EnvelopeParameters allow, and the note is restarted
+in the stage being measured if it moves on to the next stage.
+Results are ns/sample.
+**/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvelopeBenchmark {
+	
+	private static final int BLOCK_SIZE = 256; // Samples rendered per invocation
+	private static final int SAMPLE_RATE = 44100;
+	private static final double LONG_TIME = EnvelopeParameter.ATTACK.getMaxValue(); // Time of the stage being measured (seconds)
+	
+	@Param({"ATTACK", "DECAY", "SUSTAIN", "RELEASE"})
+	public EnvelopeStage stage;
+	
+	@Param({"LINEAR", "EXPONENTIAL"})
+	public EnvelopeCurve curve;
+	
+	@Param({"1", "16", "64"})
+	public int controlRate;
+	
+	private Voice voice;
+	private float[] block;
+	
+	@Setup(Level.Iteration)
+	public void setup() {
+		
+		// Oscillator which renders a constant, so only the envelope is measured
+		Oscillator constant = new Oscillator(SAMPLE_RATE) {
+			@Override
+			public void render(float[] out, int offset, int length) {
+				Arrays.fill(out, offset, offset + length, 1.0f);
+			}
+		};
+		
+		voice = new Voice(constant, new EnvelopeGenerator(SAMPLE_RATE, curve), controlRate);
+		block = new float[BLOCK_SIZE];
+		restart();
+	}
+	
+	/**
+	Starts a note which is in the stage being measured
+	**/
+	private void restart() {
+		
+		voice.cancel();
+		
+		switch (stage) {
+		case ATTACK:
+			voice.noteOn(0, 440, 50, LONG_TIME, 0, 50, 0);
+			break;
+		case DECAY:
+			voice.noteOn(0, 440, 50, 0, LONG_TIME, 50, 0);
+			break;
+		case SUSTAIN:
+			voice.noteOn(0, 440, 50, 0, 0, 50, 0);
+			break;
+		default:
+			voice.noteOn(0, 440, 50, 0, 0, 50, LONG_TIME);
+			voice.mix(block, 0, 1); // Moving on to the sustain stage
+			voice.release();
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public float[] mix() {
+		if (voice.getEnvelope().getStage() != stage) restart();
+		voice.mix(block, 0, BLOCK_SIZE);
+		return block;
+	}
+}
@@ -0,0 +1,87 @@
+package simplesynth;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+Measures the time each oscillator takes to render a sample, both from the
+phase accumulator and from the absolute time. Results are ns/sample.
+**/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OscillatorBenchmark {
+	
+	private static final int BLOCK_SIZE = 256; // Samples rendered per invocation
+	
+	@Param({"SINE", "SQUARE", "SAWTOOTH", "ADDITIVE"})
+	public String oscillator;
+	
+	@Param({"STANDARD", "WAVETABLE_LINEAR", "WAVETABLE_CUBIC", "BAND_LIMITED"})
+	public OscillatorType type;
+	
+	@Param({"44100", "48000", "96000"})
+	public int sampleRate;
+	
+	private Oscillator osc;
+	private float[] block;
+	private double time;
+	
+	@Setup
+	public void setup() {
+		
+		if (oscillator.equals("ADDITIVE")) {
+			AdditiveOscillator additive = new AdditiveOscillator(sampleRate, type);
+			additive.setIndivdualAmplitudes(50, 50, 50);
+			osc = additive;
+		} else {
+			osc = type.create(Waveform.valueOf(oscillator), sampleRate);
+		}
+		
+		osc.setFreq(440);
+		osc.setAmplitude(1.0);
+		block = new float[BLOCK_SIZE];
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public float[] phaseAccumulator() {
+		osc.render(block, 0, BLOCK_SIZE);
+		return block;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public float[] absoluteTime() {
+		osc.render(block, 0, BLOCK_SIZE, time);
+		time += BLOCK_SIZE;
+		return block;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public float[] createWave() {
+		// The original one call per sample path
+		for (int i = 0; i < BLOCK_SIZE; i++) {
+			block[i] = osc.createWave(time + i);
+		}
+		time += BLOCK_SIZE;
+		return block;
+	}
+}
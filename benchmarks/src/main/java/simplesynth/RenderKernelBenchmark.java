@@ -0,0 +1,84 @@
+package simplesynth;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+Compares the inner loops of each RenderBackend. The VECTOR backend needs the synth 
+module to be built with the vector profile. Results are ns/sample.
+**/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class RenderKernelBenchmark {
+	
+	private static final int BLOCK_SIZE = 256; // Samples rendered per invocation
+	private static final double INCREMENT = 440 / 44100.0;
+	
+	@Param({"SCALAR", "VECTOR"})
+	public RenderBackend backend;
+	
+	private RenderKernel kernel;
+	private double phase;
+	private float[] block;
+	private float[] gains;
+	private float[] out;
+	
+	@Setup
+	public void setup() {
+		
+		if (!backend.isAvailable()) {
+			throw new IllegalStateException(backend + " backend is not available, build with -Pvector");
+		}
+		
+		kernel = backend.getKernel();
+		block = new float[BLOCK_SIZE];
+		gains = new float[BLOCK_SIZE];
+		out = new float[BLOCK_SIZE];
+		for (int i = 0; i < BLOCK_SIZE; i++) gains[i] = i / (float) BLOCK_SIZE;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public float[] sine() {
+		phase = kernel.sine(block, 0, BLOCK_SIZE, phase, INCREMENT, 1);
+		return block;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public float[] sawtooth() {
+		phase = kernel.sawtooth(block, 0, BLOCK_SIZE, phase, INCREMENT, 1);
+		return block;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public float[] square() {
+		phase = kernel.square(block, 0, BLOCK_SIZE, phase, INCREMENT, 1);
+		return block;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public float[] multiplyAdd() {
+		kernel.multiplyAdd(out, 0, block, gains, BLOCK_SIZE);
+		return out;
+	}
+}
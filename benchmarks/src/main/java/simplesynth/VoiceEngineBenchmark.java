@@ -0,0 +1,82 @@
+package simplesynth;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+Measures the full voice path, the engine mixing every playing voice into a block
+and the block being converted to 16 bit PCM. Results are ns per output sample,
+the number of voices one core can play in realtime is
+voices * (1e9 / sampleRate) / result
+**/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VoiceEngineBenchmark {
+	
+	private static final int BLOCK_SIZE = 256; // Samples rendered per invocation
+	
+	@Param({"1", "8", "32"})
+	public int voices;
+	
+	@Param({"STANDARD", "WAVETABLE_LINEAR", "BAND_LIMITED"})
+	public OscillatorType type;
+	
+	@Param({"44100", "48000", "96000"})
+	public int sampleRate;
+	
+	@Param({"1"})
+	public int threads; // Threads rendering each block, set with -p threads=4
+	
+	private VoiceEngine engine;
+	private PcmConverter converter;
+	private float[] mixBlock;
+	private byte[] outputBlock;
+	
+	@Setup
+	public void setup() {
+		
+		engine = new VoiceEngine(voices, VoiceStealingPolicy.OLDEST, sampleRate, type, 
+				Voice.DEFAULT_CONTROL_RATE, threads);
+		engine.setIndividualAmplitudes(30, 30, 30);
+		
+		// Holding a note on every voice, which stays in the sustain stage
+		for (int i = 0; i < voices; i++) {
+			engine.noteOn(i, 110 * Math.pow(2, i / 12.0), 50, 0.01, 0.01, 80, 0.5);
+		}
+		
+		converter = new PcmConverter(SampleFormat.PCM_16, true, true);
+		mixBlock = new float[BLOCK_SIZE];
+		outputBlock = new byte[BLOCK_SIZE * 2];
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BLOCK_SIZE)
+	public byte[] render() {
+		engine.render(mixBlock, 0, BLOCK_SIZE);
+		converter.convert(mixBlock, 0, BLOCK_SIZE, outputBlock, 0);
+		return outputBlock;
+	}
+	
+	@TearDown
+	public void tearDown() {
+		engine.close();
+	}
+}
@@ -0,0 +1,218 @@
+package simplesynth;
+
+/**
+AdditiveOscillator extends on the Oscillator class, 
+it contains a sine, a sawtooth, and a square wave oscillator,
+The output will be the waveform from each oscillator added together
+**/
+
+public class AdditiveOscillator extends Oscillator{
+	
+	// Instances of each oscillator type
+	private Oscillator sqOsc;
+	private Oscillator stOsc;
+	private Oscillator siOsc;
+	
+	// Amplitudes for each oscillator
+	private double sqAmp; // Amplitude for squaretooth oscillator
+	private double stAmp; // Amplitude for sawtooth oscillator
+	private double siAmp; // Amplitude for sine oscillator
+	
+	// Amplitude each oscillator was rendered at by the end of the last block,
+	// changes in amplitude are ramped from these over the next block
+	private double sqGain;
+	private double stGain;
+	private double siGain;
+	private boolean restarted; // The phase was reset, so the next block starts at the current amplitudes
+	
+	// Scratch block used when rendering each oscillator before it is summed
+	private float[] scratch;
+	
+
+	/**
+	Constructor creates new square/saw/sine oscillators
+	@param sampleRate is the sample rate used for the oscillators
+	**/
+	public AdditiveOscillator(int sampleRate) {
+		this(sampleRate, OscillatorType.STANDARD);
+	}
+	
+	
+	/**
+	Constructor creates new square/saw/sine oscillators of the type specified
+	@param sampleRate is the sample rate used for the oscillators
+	@param type is the kind of oscillator used for each waveform
+	**/
+	public AdditiveOscillator(int sampleRate, OscillatorType type) {
+		super(sampleRate);
+		sqOsc = type.create(Waveform.SQUARE, sampleRate);
+		stOsc = type.create(Waveform.SAWTOOTH, sampleRate);
+		siOsc = type.create(Waveform.SINE, sampleRate);
+		scratch = new float[0];
+	}
+
+
+	/**
+	Creates the frequency as a byte where at time t
+	@param t is the time at which the wave is at (1 sec => t=sampleRate)
+	@return The byte created by adding the individual oscillator waves
+			together at time t, clipped to the range of a byte
+	**/
+	@Override
+	public byte createWave(double t) {
+		int sum = siOsc.createWave(t) + sqOsc.createWave(t) + stOsc.createWave(t);
+		return (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, sum));
+	}
+	
+	
+	/**
+	Renders a block of samples by rendering each individual oscillator's block
+	and adding them together
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param t the time of the first sample (1 sec => t=sampleRate)
+	**/
+	@Override
+	public void render(float[] out, int offset, int length, double t) {
+		// Only grows the scratch block, so it is reused between blocks
+		if (scratch.length < length) scratch = new float[length];
+		
+		siOsc.render(out, offset, length, t);
+		
+		sqOsc.render(scratch, 0, length, t);
+		for (int i = 0; i < length; i++) out[offset + i] += scratch[i];
+		
+		stOsc.render(scratch, 0, length, t);
+		for (int i = 0; i < length; i++) out[offset + i] += scratch[i];
+	}
+	
+	
+	/**
+	Renders a block of samples by rendering each individual oscillator's block
+	from its phase accumulator and adding them together. If an oscillator's amplitude
+	has changed since the last block, it is ramped to the new amplitude across the 
+	block, so moving the amplitude does not cause zipper noise. After the phase is reset 
+	there is nothing to ramp from, so the first block starts at the current amplitudes
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	**/
+	@Override
+	public void render(float[] out, int offset, int length) {
+		// Only grows the scratch block, so it is reused between blocks
+		if (scratch.length < length) scratch = new float[length];
+		
+		if (restarted) {
+			siGain = siOsc.amplitude;
+			sqGain = sqOsc.amplitude;
+			stGain = stOsc.amplitude;
+			restarted = false;
+		}
+		
+		siGain = renderRamped(siOsc, siGain, out, offset, length, false);
+		sqGain = renderRamped(sqOsc, sqGain, out, offset, length, true);
+		stGain = renderRamped(stOsc, stGain, out, offset, length, true);
+	}
+	
+	
+	/**
+	Renders an individual oscillator at unit amplitude, and scales it by a gain ramped
+	from the amplitude of the last block to the oscillator's current amplitude
+	@param osc the oscillator to render
+	@param gain the amplitude the oscillator was rendered at by the end of the last block
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param add true to add to the samples in out, false to replace them
+	@return the amplitude the oscillator was rendered at by the end of the block
+	**/
+	private double renderRamped(Oscillator osc, double gain, float[] out, int offset, int length, boolean add) {
+		
+		double target = osc.amplitude;
+		osc.setAmplitude(1.0);
+		osc.render(scratch, 0, length);
+		osc.setAmplitude(target);
+		
+		float g = (float) gain;
+		float step = (float) ((target - gain) / length);
+		
+		for (int i = 0; i < length; i++) {
+			g += step;
+			out[offset + i] = (add ? out[offset + i] : 0) + scratch[i] * g;
+		}
+		return target;
+	}
+	
+	
+	/**
+	Resets the phase accumulator of each individual oscillator. The amplitudes of 
+	the note played before are not ramped from
+	**/
+	@Override
+	public void resetPhase() {
+		sqOsc.resetPhase();
+		stOsc.resetPhase();
+		siOsc.resetPhase();
+		restarted = true;
+	}
+	
+
+	/**
+	Sets the frequency of the oscillator
+	@param freq the new frequency of the oscillator
+	**/
+	@Override
+	public void setFreq(double freq) {
+		// Setting frequency of the individual oscillators
+		sqOsc.setFreq(freq);
+		stOsc.setFreq(freq);
+		siOsc.setFreq(freq);
+	}
+	
+	
+	/**
+	Sets the frequency of the oscillator from the amount its phase moves each sample
+	@param phaseIncrement the frequency divided by the sample rate
+	**/
+	@Override
+	public void setPhaseIncrement(double phaseIncrement) {
+		sqOsc.setPhaseIncrement(phaseIncrement);
+		stOsc.setPhaseIncrement(phaseIncrement);
+		siOsc.setPhaseIncrement(phaseIncrement);
+	}
+	
+
+	/**
+	Sets the amplitude of the oscillator by setting the relative amplitude of each
+	individual oscillator
+	@param amplitude is the value of the amplitude that will be set
+	**/
+	@Override
+	public void setAmplitude(double amplitude) {
+		this.amplitude = amplitude;
+		
+		// Setting the amplitude of each synth relative to its current amplitude
+		sqOsc.setAmplitude(amplitude * (sqAmp / 100.0));
+		stOsc.setAmplitude(amplitude * (stAmp / 100.0));
+		siOsc.setAmplitude(amplitude * (siAmp / 100.0));
+	}
+	
+
+	/**
+	Sets the amplitude of each individual oscillator
+	@param 	sqAmp the amplitude of the square wave oscillator
+	@param 	stAmp the amplitude of the sawtooth wave oscillator
+	@param 	siAmp the amplitude of the sine wave oscillator
+	**/
+	public void setIndivdualAmplitudes(double sqAmp, double stAmp, double siAmp) {
+		
+		this.sqAmp = sqAmp;
+		this.stAmp = stAmp;
+		this.siAmp = siAmp;
+		
+		sqOsc.setAmplitude(sqAmp);
+		stOsc.setAmplitude(stAmp);
+		siOsc.setAmplitude(siAmp);
+	}
+}
@@ -0,0 +1,183 @@
+package simplesynth;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+AudioOutput creates a thread which keeps one line open for the life of the synth
+and feeds it continuously from the engine. Each block is mixed by the engine and 
+written to the line, when no notes are playing the engine's block is silent, so
+the line never runs dry. The engine mixes in floats and each block is converted
+to the line's PCM format just before it is written. Notes are started and stopped on the 
+engine, the line is never stopped, flushed or reopened between notes.
+The line's buffer is opened to hold a number of blocks, the blocks in flight, and the 
+thread renders ahead of the line until the buffer is full. Writing to the line then blocks 
+until a block has been played, which keeps the thread in step with the speaker, with the 
+next block being rendered while the rest of the buffer plays. More blocks in flight gives 
+the thread more time to catch up after a slow block, at the cost of latency.
+How close the line came to running dry is recorded in the AudioOutputStats, which are 
+also registered over JMX while the line is open, as simplesynth:type=AudioOutput,name=<id>
+where the id is the output thread's id, so each open output has its own name.
+**/
+
+public class AudioOutput extends Thread {
+	
+	private static final boolean SOFT_LIMIT = true; // Soft limit rather than hard clip
+	private static final String MBEAN_NAME = "simplesynth:type=AudioOutput,name=";
+	private static final Logger LOGGER = Logger.getLogger(AudioOutput.class.getName());
+	
+	private final VoiceEngine engine;
+	private final SourceDataLine line;
+	private final AudioFormat af;
+	private final PcmConverter converter;
+	private final int blockSize;
+	private final int blocksInFlight;
+	private final AudioOutputStats stats;
+	
+	private final float[] mixBlock; // The block mixed by the engine
+	private final byte[] outputBlock; // The block written to the line
+	
+	private volatile boolean running;
+	
+	
+	/**
+	Constructor for the output, with the block size and blocks in flight of the balanced profile
+	@param engine the engine rendered to the line
+	@param line output line
+	@param af audio format the line is opened with, must be mono 16/24 bit or 32 bit float PCM
+	**/
+	public AudioOutput(VoiceEngine engine, SourceDataLine line, AudioFormat af) {
+		this(engine, line, af, LatencyProfile.BALANCED);
+	}
+	
+	
+	/**
+	Constructor for the output, with the block size and blocks in flight of a latency profile
+	@param engine the engine rendered to the line
+	@param line output line
+	@param af audio format the line is opened with, must be mono 16/24 bit or 32 bit float PCM
+	@param profile sets the block size and the blocks in flight
+	**/
+	public AudioOutput(VoiceEngine engine, SourceDataLine line, AudioFormat af, LatencyProfile profile) {
+		this(engine, line, af, profile.getBlockSize(), profile.getBlocksInFlight());
+	}
+	
+	
+	/**
+	Constructor for the output
+	@param engine the engine rendered to the line
+	@param line output line
+	@param af audio format the line is opened with, must be mono 16/24 bit or 32 bit float PCM
+	@param blockSize the number of samples rendered at a time
+	@param blocksInFlight the number of blocks the line's buffer holds, at least 2
+	**/
+	public AudioOutput(VoiceEngine engine, SourceDataLine line, AudioFormat af, int blockSize, int blocksInFlight) {
+		super("AudioOutput");
+		
+		if (blockSize < 1) throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+		if (blocksInFlight < 2) throw new IllegalArgumentException("At least 2 blocks must be in flight: " + blocksInFlight);
+		
+		this.engine = engine;
+		this.line = line;
+		this.af = af;
+		this.converter = new PcmConverter(af, SOFT_LIMIT);
+		this.blockSize = blockSize;
+		this.blocksInFlight = blocksInFlight;
+		this.stats = new AudioOutputStats(engine.getDeadlineStats(), (int) af.getSampleRate(), blocksInFlight);
+		
+		this.mixBlock = new float[blockSize];
+		this.outputBlock = new byte[blockSize * af.getFrameSize()];
+		
+		// Rendering should not wait behind the GUI
+		this.setPriority(Thread.MAX_PRIORITY);
+	}
+	
+	
+	/**
+	Opens and starts the line, then starts the render thread
+	@throws LineUnavailableException
+	**/
+	public void open() throws LineUnavailableException {
+		
+		this.line.open(this.af, this.blocksInFlight * this.outputBlock.length);
+		// The line may not use the buffer size asked for
+		this.stats.setLineBufferFrames(this.line.getBufferSize() / this.af.getFrameSize());
+		this.line.start();
+		
+		this.running = true;
+		registerStats();
+		this.start();
+	}
+	
+	
+	public void run() {
+		
+		int frameSize = this.af.getFrameSize();
+		int lineBufferBytes = this.line.getBufferSize();
+		
+		while (this.running) {
+			this.engine.render(this.mixBlock, 0, this.blockSize);
+			int bytes = this.converter.convert(this.mixBlock, 0, this.blockSize, this.outputBlock, 0);
+			
+			// Recording how much was left to play before adding the block
+			this.stats.record((lineBufferBytes - this.line.available()) / frameSize);
+			this.line.write(this.outputBlock, 0, bytes);
+		}
+		
+		// Playing what is left in the line before closing it
+		this.line.drain();
+		this.line.stop();
+		this.line.close();
+		unregisterStats();
+	}
+	
+	
+	/**
+	Registers the stats with the platform MBean server, so they can be watched over JMX.
+	The output still works if they cannot be registered
+	**/
+	private void registerStats() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this.stats, new ObjectName(MBEAN_NAME + this.getId()));
+		} catch (JMException e) {
+			LOGGER.log(Level.WARNING, "Could not register the audio output stats over JMX", e);
+		}
+	}
+	
+	
+	/**
+	Removes the stats from the platform MBean server
+	**/
+	private void unregisterStats() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(MBEAN_NAME + this.getId()));
+		} catch (JMException e) {
+			LOGGER.log(Level.WARNING, "Could not unregister the audio output stats from JMX", e);
+		}
+	}
+	
+	
+	/**
+	Stops the render thread and closes the line once it has finished playing
+	**/
+	public void close() {
+		this.running = false;
+	}
+	
+	
+	/**
+	@return how close the line has come to running dry
+	**/
+	public AudioOutputStats getStats() {
+		return this.stats;
+	}
+}
@@ -0,0 +1,140 @@
+package simplesynth;
+
+/**
+AudioOutputStats records how close the AudioOutput is to running the line dry. 
+Before each block is written, the amount of audio still queued in the line is recorded: 
+the fill level is the fraction of the line's buffer that is full, and the headroom is the 
+time the line could play for without another block. A line which has run out of samples 
+by the time a block is written has underrun, and the listener will have heard a gap.
+The line is allowed to fill up before anything is counted, so starting the line is not an underrun.
+The time the engine took to render each block is taken from the engine's DeadlineStats.
+The stats are written by the render thread and can be read from any thread
+**/
+
+public class AudioOutputStats implements AudioOutputStatsMXBean {
+	
+	private final DeadlineStats engineStats;
+	private final int sampleRate;
+	private final int blocksInFlight;
+	private volatile int lineBufferFrames;
+	
+	private volatile long blockCount;
+	private volatile long underrunCount;
+	private volatile double fillLevel;
+	private volatile double minFillLevel = 1;
+	private volatile double headroomMillis;
+	private volatile double minHeadroomMillis = Double.MAX_VALUE;
+	
+	
+	/**
+	Constructor for AudioOutputStats
+	@param engineStats the render times of the engine feeding the output
+	@param sampleRate the sample rate of the line
+	@param blocksInFlight the number of blocks the line's buffer holds
+	**/
+	AudioOutputStats(DeadlineStats engineStats, int sampleRate, int blocksInFlight) {
+		this.engineStats = engineStats;
+		this.sampleRate = sampleRate;
+		this.blocksInFlight = blocksInFlight;
+	}
+	
+	
+	/**
+	Sets the size of the line's buffer, which is only known once the line is open
+	@param frames the size of the line's buffer in frames
+	**/
+	void setLineBufferFrames(int frames) {
+		this.lineBufferFrames = frames;
+	}
+	
+	
+	/**
+	Records the state of the line just before a block is written. Must only be called from the render thread
+	@param queuedFrames the frames in the line's buffer waiting to be played
+	**/
+	void record(int queuedFrames) {
+		
+		long blocks = ++this.blockCount;
+		
+		this.fillLevel = queuedFrames / (double) this.lineBufferFrames;
+		this.headroomMillis = queuedFrames * 1000.0 / this.sampleRate;
+		
+		// The line is empty until the first blocks have been written
+		if (blocks > this.blocksInFlight) {
+			if (queuedFrames == 0) this.underrunCount++;
+			if (this.fillLevel < this.minFillLevel) this.minFillLevel = this.fillLevel;
+			if (this.headroomMillis < this.minHeadroomMillis) this.minHeadroomMillis = this.headroomMillis;
+		}
+	}
+	
+	// Getters
+	
+	@Override
+	public long getBlockCount() {
+		return this.blockCount;
+	}
+	
+	@Override
+	public long getUnderrunCount() {
+		return this.underrunCount;
+	}
+	
+	@Override
+	public int getBlocksInFlight() {
+		return this.blocksInFlight;
+	}
+	
+	@Override
+	public int getLineBufferFrames() {
+		return this.lineBufferFrames;
+	}
+	
+	@Override
+	public double getFillLevel() {
+		return this.fillLevel;
+	}
+	
+	@Override
+	public double getMinFillLevel() {
+		return this.minFillLevel;
+	}
+	
+	@Override
+	public double getHeadroomMillis() {
+		return this.headroomMillis;
+	}
+	
+	@Override
+	public double getMinHeadroomMillis() {
+		return (this.minHeadroomMillis == Double.MAX_VALUE) ? this.headroomMillis : this.minHeadroomMillis;
+	}
+	
+	@Override
+	public double getAverageLoad() {
+		return this.engineStats.getAverageLoad();
+	}
+	
+	@Override
+	public double getWorstLoad() {
+		return this.engineStats.getWorstLoad();
+	}
+	
+	@Override
+	public long getMissedDeadlineCount() {
+		return this.engineStats.getMissedCount();
+	}
+	
+	@Override
+	public long[] getLoadHistogram() {
+		return this.engineStats.getLoadHistogram();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d blocks, %d underruns, fill level %.0f%% (min %.0f%%), "
+				+ "headroom %.1f ms (min %.1f ms), engine: %s",
+				this.getBlockCount(), this.getUnderrunCount(), this.getFillLevel() * 100,
+				this.getMinFillLevel() * 100, this.getHeadroomMillis(), this.getMinHeadroomMillis(),
+				this.engineStats);
+	}
+}
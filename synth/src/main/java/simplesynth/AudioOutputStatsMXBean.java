@@ -0,0 +1,70 @@
+package simplesynth;
+
+/**
+Management interface of AudioOutputStats, so the health of the audio output
+can be watched over JMX, for example from jconsole
+**/
+
+public interface AudioOutputStatsMXBean {
+	
+	/**
+	@return the number of blocks written to the line
+	**/
+	long getBlockCount();
+	
+	/**
+	@return the number of times the line had run out of samples when a block was written
+	**/
+	long getUnderrunCount();
+	
+	/**
+	@return the number of blocks the line's buffer holds
+	**/
+	int getBlocksInFlight();
+	
+	/**
+	@return the size of the line's buffer in frames
+	**/
+	int getLineBufferFrames();
+	
+	/**
+	@return the fraction of the line's buffer that was full when the last block was written
+	**/
+	double getFillLevel();
+	
+	/**
+	@return the lowest fraction of the line's buffer that was full when a block was written
+	**/
+	double getMinFillLevel();
+	
+	/**
+	@return the time the line could play for without another block, when the last block was written
+	**/
+	double getHeadroomMillis();
+	
+	/**
+	@return the lowest time the line could play for without another block, when a block was written
+	**/
+	double getMinHeadroomMillis();
+	
+	/**
+	@return the average fraction of each block's deadline the engine spent rendering it
+	**/
+	double getAverageLoad();
+	
+	/**
+	@return the largest fraction of a block's deadline the engine spent rendering it
+	**/
+	double getWorstLoad();
+	
+	/**
+	@return the number of blocks the engine took longer to render than to play
+	**/
+	long getMissedDeadlineCount();
+	
+	/**
+	@return the number of blocks in each 10% wide bucket of load, the last bucket counts the missed blocks
+	**/
+	long[] getLoadHistogram();
+	
+}
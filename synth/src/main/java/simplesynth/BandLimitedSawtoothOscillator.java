@@ -0,0 +1,85 @@
+package simplesynth;
+
+/**
+BandLimitedSawtoothOscillator extends on the SawtoothOscillator class,
+It produces the same sawtooth wave, but the jump at the end of each period is 
+smoothed with a PolyBLEP correction, so the upper octaves do not alias
+**/
+
+public class BandLimitedSawtoothOscillator extends SawtoothOscillator {
+
+	// Constructors
+	
+	/**
+	Constructor for BandLimitedSawtoothOscillator by default sets freq to middle c, and amplitude to 100
+	@param sampleRate sets the sample rate of the oscillator
+	**/
+	public BandLimitedSawtoothOscillator(int sampleRate) {
+		super(sampleRate);
+	}
+	
+	
+	/**
+	Constructor for BandLimitedSawtoothOscillator
+	@param sampleRate sets the sample rate of the oscillator
+	@param freq sets the frequency of the oscillator
+	@param amplitude sets the amplitude of the oscillator
+	**/
+	public BandLimitedSawtoothOscillator(int sampleRate, double freq, double amplitude) {
+		super(sampleRate, freq, amplitude);
+	}
+	
+	
+	/**
+	Returns the frequency as a byte at time t on the band-limited sawtooth wave
+	@param t is the time at which the wave is at (1 sec => t=sampleRate)
+	@return The byte created by the sawtooth oscillator at time t
+	**/
+	@Override
+	public byte createWave(double t) {
+		double x = t * this.phaseIncrement;
+		double p = x - Math.floor(x);
+		return (byte) (this.amplitude * (2 * p - polyBlep(p, this.phaseIncrement)));
+	}
+	
+	
+	/**
+	Renders a block of samples from the band-limited sawtooth oscillator into the output array
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param t the time of the first sample (1 sec => t=sampleRate)
+	**/
+	@Override
+	public void render(float[] out, int offset, int length, double t) {
+		double x = t * this.phaseIncrement;
+		double p = this.phase;
+		
+		// Rendering from the phase at time t, then restoring the accumulator
+		this.phase = x - Math.floor(x);
+		render(out, offset, length);
+		this.phase = p;
+	}
+	
+	
+	/**
+	Renders a block of samples from the band-limited sawtooth oscillator using the 
+	phase accumulator, continuing from where the previous block finished
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	**/
+	@Override
+	public void render(float[] out, int offset, int length) {
+		double amp = this.amplitude;
+		double p = this.phase;
+		double inc = this.phaseIncrement;
+		
+		for (int i = 0; i < length; i++) {
+			out[offset + i] = (float) (amp * (2 * p - polyBlep(p, inc)));
+			p += inc;
+			if (p >= 1.0) p -= Math.floor(p); // Wrapping the phase at the end of each period, even if it moved more than one
+		}
+		this.phase = p;
+	}
+}
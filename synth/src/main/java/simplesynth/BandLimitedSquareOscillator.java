@@ -0,0 +1,104 @@
+package simplesynth;
+
+/**
+BandLimitedSquareOscillator extends on the SquareOscillator class,
+It produces the same square wave, but the jumps at the start and the middle of
+each period are smoothed with PolyBLEP corrections, so the upper octaves do not alias
+**/
+
+public class BandLimitedSquareOscillator extends SquareOscillator {
+
+	// Constructors
+	
+	/**
+	Constructor for BandLimitedSquareOscillator by default sets freq to middle c, and amplitude to 100
+	@param sampleRate sets the sample rate of the oscillator
+	**/
+	public BandLimitedSquareOscillator(int sampleRate) {
+		super(sampleRate);
+	}
+	
+	
+	/**
+	Constructor for BandLimitedSquareOscillator
+	@param sampleRate sets the sample rate of the oscillator
+	@param freq sets the frequency of the oscillator
+	@param amplitude sets the amplitude of the oscillator
+	**/
+	public BandLimitedSquareOscillator(int sampleRate, double freq, double amplitude) {
+		super(sampleRate, freq, amplitude);
+	}
+	
+	
+	/**
+	Creates the frequency as a byte where at time t on the band-limited square wave
+	@param t is the time at which the wave is at (1 sec => t=sampleRate)
+	@return The byte created by the square wave oscillator at time t
+	**/
+	@Override
+	public byte createWave(double t) {
+		double x = t * this.phaseIncrement;
+		return (byte) (this.amplitude * square(x - Math.floor(x), this.phaseIncrement));
+	}
+	
+	
+	/**
+	Renders a block of samples from the band-limited square wave oscillator into the output array
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param t the time of the first sample (1 sec => t=sampleRate)
+	**/
+	@Override
+	public void render(float[] out, int offset, int length, double t) {
+		double x = t * this.phaseIncrement;
+		double p = this.phase;
+		
+		// Rendering from the phase at time t, then restoring the accumulator
+		this.phase = x - Math.floor(x);
+		render(out, offset, length);
+		this.phase = p;
+	}
+	
+	
+	/**
+	Renders a block of samples from the band-limited square wave oscillator using the 
+	phase accumulator, continuing from where the previous block finished
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	**/
+	@Override
+	public void render(float[] out, int offset, int length) {
+		double amp = this.amplitude;
+		double p = this.phase;
+		double inc = this.phaseIncrement;
+		
+		for (int i = 0; i < length; i++) {
+			out[offset + i] = (float) (amp * square(p, inc));
+			p += inc;
+			if (p >= 1.0) p -= Math.floor(p); // Wrapping the phase at the end of each period, even if it moved more than one
+		}
+		this.phase = p;
+	}
+	
+	
+	/**
+	Calculates the band-limited square wave at unit amplitude. The wave jumps up by 1
+	at the start of the period and down by 1 half way through, so half of the
+	correction for each jump is applied, with the sign flipped for the rising jump
+	@param p the position within the period (0 to 1)
+	@param inc the phase increment per sample
+	@return the value of the square wave
+	**/
+	private static double square(double p, double inc) {
+		
+		double naive = (p < 0.5) ? 1 : 0; // High for the first half of each period
+		
+		// Position relative to the falling jump half way through the period
+		double half = p + 0.5;
+		if (half >= 1.0) half -= 1.0;
+		
+		return naive + 0.5 * (polyBlep(p, inc) - polyBlep(half, inc));
+	}
+}
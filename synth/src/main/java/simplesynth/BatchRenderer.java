@@ -0,0 +1,237 @@
+package simplesynth;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+BatchRenderer renders many independent jobs at once, spread over the cores by a
+work-stealing ForkJoinPool, so a thread which finishes its short jobs takes jobs waiting
+behind a long one rather than sitting idle. Each thread renders with its own OfflineRenderer,
+which is created once and keeps its voices and blocks between jobs, so a thread's jobs never
+allocate new voices once it has played as many notes at once as its busiest job.
+The only state the threads share is the NoteCache, if one is given. Its methods are
+synchronized, so a thread holds its lock only to look up or add a note, and copies cached
+notes into its block after letting go of it, since cached samples are never changed.
+The report gives each job's realtime factor and the batch's, which is the audio rendered
+by every job per second of the whole batch.
+**/
+
+public class BatchRenderer {
+
+	private final LatencyProfile profile;
+	private final OscillatorType type;
+	private final SampleFormat format;
+	private final int threads;
+	private final NoteCache cache; // null when every note is synthesised
+
+
+	/**
+	Constructor for a renderer using the standard oscillators, 16 bit PCM, the high
+	throughput profile and a thread for each core
+	**/
+	public BatchRenderer() {
+		this(LatencyProfile.HIGH_THROUGHPUT, OscillatorType.STANDARD, SampleFormat.PCM_16,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	Constructor for a renderer
+	@param profile sets the block size, the sample rate and the control rate of every job
+	@param type the kind of oscillator each voice's AdditiveOscillator is built from
+	@param format the sample format stored in WAV files
+	@param threads the number of jobs rendered at once
+	**/
+	public BatchRenderer(LatencyProfile profile, OscillatorType type, SampleFormat format, int threads) {
+		this(profile, type, format, threads, null);
+	}
+
+
+	/**
+	Constructor for a renderer whose threads share a cache of rendered notes, so a note
+	repeated across jobs is only synthesised once
+	@param profile sets the block size, the sample rate and the control rate of every job
+	@param type the kind of oscillator each voice's AdditiveOscillator is built from
+	@param format the sample format stored in WAV files
+	@param threads the number of jobs rendered at once
+	@param cache holds rendered notes, or null to synthesise every note
+	**/
+	public BatchRenderer(LatencyProfile profile, OscillatorType type, SampleFormat format, int threads,
+			NoteCache cache) {
+
+		if (threads < 1) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+
+		this.profile = profile;
+		this.type = type;
+		this.format = format;
+		this.threads = threads;
+		this.cache = cache;
+	}
+
+
+	/**
+	Renders every job, returning once they have all finished. If a job fails the others
+	are still rendered, and the first failure is thrown once they have finished
+	@param jobs the jobs to render
+	@return the report of the batch, with the jobs' reports in the order of the jobs
+	@throws IOException if a job could not be written
+	@throws InterruptedException if interrupted while waiting for the jobs
+	**/
+	public Report render(List<RenderJob> jobs) throws IOException, InterruptedException {
+
+		long startNanos = System.nanoTime();
+
+		// A renderer for each pool thread, reused by every job the thread renders
+		final ThreadLocal<OfflineRenderer> renderers = new ThreadLocal<OfflineRenderer>() {
+			@Override
+			protected OfflineRenderer initialValue() {
+				return new OfflineRenderer(profile, type, format, cache);
+			}
+		};
+
+		// Each job keeps its own failure, as the pool would wrap it in other exceptions
+		final IOException[] failures = new IOException[jobs.size()];
+		List<Callable<OfflineRenderer.Report>> tasks = new ArrayList<Callable<OfflineRenderer.Report>>();
+		for (int i = 0; i < jobs.size(); i++) {
+			final RenderJob job = jobs.get(i);
+			final int index = i;
+			tasks.add(new Callable<OfflineRenderer.Report>() {
+				@Override
+				public OfflineRenderer.Report call() {
+					try {
+						return job.render(renderers.get());
+					} catch (IOException e) {
+						failures[index] = e;
+						return null;
+					}
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(this.threads);
+		List<OfflineRenderer.Report> reports = new ArrayList<OfflineRenderer.Report>();
+		try {
+			for (Future<OfflineRenderer.Report> result : pool.invokeAll(tasks)) {
+				reports.add(result.get());
+			}
+		} catch (ExecutionException e) {
+			// A job failed with something other than an IOException, such as a bad note
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		
+		for (IOException failure : failures) {
+			if (failure != null) throw failure;
+		}
+
+		return new Report(jobs, reports, System.nanoTime() - startNanos);
+	}
+
+
+	/**
+	Report of a finished batch
+	**/
+	public static class Report {
+
+		private final List<RenderJob> jobs;
+		private final List<OfflineRenderer.Report> jobReports;
+		private final long elapsedNanos;
+
+		Report(List<RenderJob> jobs, List<OfflineRenderer.Report> jobReports, long elapsedNanos) {
+			this.jobs = Collections.unmodifiableList(new ArrayList<RenderJob>(jobs));
+			this.jobReports = Collections.unmodifiableList(jobReports);
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		@return the report of each job, in the order of the jobs
+		**/
+		public List<OfflineRenderer.Report> getJobReports() {
+			return this.jobReports;
+		}
+
+		/**
+		@return the length of the audio rendered by every job (seconds)
+		**/
+		public double getAudioSeconds() {
+			double seconds = 0;
+			for (OfflineRenderer.Report report : this.jobReports) {
+				seconds += report.getAudioSeconds();
+			}
+			return seconds;
+		}
+
+		/**
+		@return the time the whole batch took (seconds)
+		**/
+		public double getElapsedSeconds() {
+			return this.elapsedNanos / 1e9;
+		}
+
+		/**
+		@return how many seconds of audio the batch rendered per second,
+		above 1 is faster than realtime
+		**/
+		public double getRealtimeFactor() {
+			return this.getAudioSeconds() / this.getElapsedSeconds();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < this.jobs.size(); i++) {
+				text.append(this.jobs.get(i).getName()).append(": ").append(this.jobReports.get(i)).append('\n');
+			}
+			text.append(String.format("Rendered %d jobs, %.2f s of audio in %.3f s (%.1fx realtime)",
+					this.jobs.size(), this.getAudioSeconds(), this.getElapsedSeconds(), this.getRealtimeFactor()));
+			return text.toString();
+		}
+	}
+
+
+	/**
+	Renders a batch of scales, each with a different mix and envelope, to a directory,
+	as an example of a batch render
+	@param args the directory the WAV files are written to, and optionally the number of jobs
+	**/
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: java -cp simplesynth.jar simplesynth.BatchRenderer <output dir> [job count]");
+			return;
+		}
+
+		File directory = new File(args[0]);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create " + directory);
+		}
+		int jobCount = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+
+		Note[] notes = Note.values();
+		List<RenderJob> jobs = new ArrayList<RenderJob>();
+		for (int j = 0; j < jobCount; j++) {
+			List<NoteEvent> events = new ArrayList<NoteEvent>();
+			for (int i = 0; i < 8; i++) {
+				// Varying the mix and the envelope from job to job
+				events.add(new NoteEvent(notes[(j + i * 2) % notes.length], 3 + j % 3, i * 0.25, 0.2, 50,
+						0.005 * (1 + j % 4), 0.1, 40 + j % 5 * 10, 0.2,
+						j % 3 * 20, 40 - j % 3 * 10, 40 + j % 2 * 20));
+			}
+			jobs.add(new RenderJob("job-" + j, events, new File(directory, "job-" + j + ".wav")));
+		}
+
+		LatencyProfile profile = LatencyProfile.fromProperty(LatencyProfile.HIGH_THROUGHPUT);
+		BatchRenderer renderer = new BatchRenderer(profile, OscillatorType.STANDARD, SampleFormat.PCM_16,
+				Runtime.getRuntime().availableProcessors());
+		System.out.println(renderer.render(jobs));
+	}
+}
@@ -0,0 +1,144 @@
+package simplesynth;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ChannelSink streams raw PCM, with no header, to a channel such as a FileChannel, the sink
+of a Pipe, or a SocketChannel for streaming to another process. Samples are converted
+straight into a direct buffer, which is written to the channel once it is full, so the
+channel is written in large pieces rather than once per block. The channel must be in
+blocking mode.
+**/
+
+public class ChannelSink implements PcmSink {
+
+	private static final boolean SOFT_LIMIT = true; // Soft limit rather than hard clip
+	private static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+
+	private final WritableByteChannel channel;
+	private final AudioFormat format;
+	private final PcmConverter converter;
+	private final ByteBuffer buffer; // Converted samples waiting to be written
+
+
+	/**
+	Constructor for the sink, with a 64 KB buffer
+	@param channel the channel written to, in blocking mode
+	@param format the mono 16/24 bit or 32 bit float PCM format written
+	**/
+	public ChannelSink(WritableByteChannel channel, AudioFormat format) {
+		this(channel, format, DEFAULT_BUFFER_BYTES);
+	}
+
+
+	/**
+	Constructor for the sink
+	@param channel the channel written to, in blocking mode
+	@param format the mono 16/24 bit or 32 bit float PCM format written
+	@param bufferBytes the number of bytes held before they are written to the channel
+	**/
+	public ChannelSink(WritableByteChannel channel, AudioFormat format, int bufferBytes) {
+
+		if (format.getChannels() != 1) throw new IllegalArgumentException("The format must be mono: " + format);
+
+		// Holding a whole number of samples
+		int frameSize = format.getFrameSize();
+		if (bufferBytes < frameSize) throw new IllegalArgumentException("Buffer must hold a sample: " + bufferBytes);
+
+		this.channel = channel;
+		this.format = format;
+		this.converter = new PcmConverter(format, SOFT_LIMIT);
+		this.buffer = ByteBuffer.allocateDirect(bufferBytes - bufferBytes % frameSize);
+	}
+
+
+	/**
+	Creates a sink writing raw PCM to a file
+	@param file the file written to, replaced if it exists
+	@param format the mono 16/24 bit or 32 bit float PCM format written
+	@return the sink
+	@throws IOException
+	**/
+	public static ChannelSink create(File file, AudioFormat format) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		return new ChannelSink(channel, format);
+	}
+
+
+	/**
+	Creates a sink streaming raw PCM to a socket, such as a local player
+	@param address the address listening for the audio
+	@param format the mono 16/24 bit or 32 bit float PCM format written
+	@return the sink
+	@throws IOException
+	**/
+	public static ChannelSink connect(InetSocketAddress address, AudioFormat format) throws IOException {
+		SocketChannel channel = SocketChannel.open(address);
+		channel.socket().setTcpNoDelay(true); // Not holding back the last part of a block
+		return new ChannelSink(channel, format);
+	}
+
+
+	@Override
+	public void write(FloatBuffer samples) throws IOException {
+
+		while (samples.hasRemaining()) {
+			if (this.buffer.remaining() < this.converter.getFormat().getBytesPerSample()) flush();
+			this.converter.convert(samples, this.buffer);
+		}
+	}
+
+
+	@Override
+	public void write(ByteBuffer pcm) throws IOException {
+
+		// Keeping the bytes in order behind the samples already held
+		flush();
+		while (pcm.hasRemaining()) {
+			this.channel.write(pcm);
+		}
+	}
+
+
+	@Override
+	public void flush() throws IOException {
+
+		this.buffer.flip();
+		try {
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+		} finally {
+			// Back to filling, keeping any bytes a failed write left, so they are written first next time
+			this.buffer.compact();
+		}
+	}
+
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+			flush();
+		} finally {
+			this.channel.close();
+		}
+	}
+
+
+	@Override
+	public AudioFormat getFormat() {
+		return this.format;
+	}
+}
@@ -0,0 +1,110 @@
+package simplesynth;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+DeadlineStats records how long each block took to render compared to its deadline,
+the time it takes to play the block. A block that takes longer than its deadline
+would leave the line without samples to play. The load of a block is its render
+time divided by its deadline, so a load of 1 or more is a missed deadline.
+The loads are also counted in a histogram of 10% wide buckets, with the last bucket 
+counting every missed deadline.
+The stats are written by the render thread and can be read from any thread
+**/
+
+public class DeadlineStats {
+	
+	public static final int HISTOGRAM_BUCKETS = 11; // 0-10% ... 90-100%, then missed
+	
+	private final int sampleRate;
+	private final AtomicLongArray histogram;
+	
+	private volatile long blockCount;
+	private volatile long missedCount; // Blocks that took longer to render than to play
+	private volatile double totalLoad;
+	private volatile double worstLoad;
+	private volatile double lastLoad;
+	
+	
+	/**
+	Constructor for DeadlineStats
+	@param sampleRate the sample rate blocks are played at
+	**/
+	public DeadlineStats(int sampleRate) {
+		this.sampleRate = sampleRate;
+		this.histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+	}
+	
+	
+	/**
+	Records a rendered block. Must only be called from the render thread
+	@param length the number of samples in the block
+	@param renderNanos the time the block took to render
+	**/
+	void record(int length, long renderNanos) {
+		
+		double deadlineNanos = length * 1e9 / this.sampleRate;
+		double load = renderNanos / deadlineNanos;
+		
+		this.blockCount++;
+		if (load >= 1) this.missedCount++;
+		this.totalLoad += load;
+		if (load > this.worstLoad) this.worstLoad = load;
+		this.lastLoad = load;
+		this.histogram.incrementAndGet((int) Math.min(load * 10, HISTOGRAM_BUCKETS - 1));
+	}
+	
+	// Getters
+	
+	/**
+	@return the number of blocks rendered
+	**/
+	public long getBlockCount() {
+		return this.blockCount;
+	}
+	
+	/**
+	@return the number of blocks that took longer to render than to play
+	**/
+	public long getMissedCount() {
+		return this.missedCount;
+	}
+	
+	/**
+	@return the average fraction of each block's deadline spent rendering it
+	**/
+	public double getAverageLoad() {
+		long blocks = this.blockCount;
+		return (blocks > 0) ? this.totalLoad / blocks : 0;
+	}
+	
+	/**
+	@return the largest fraction of a block's deadline spent rendering it, the closest a block came to missing
+	**/
+	public double getWorstLoad() {
+		return this.worstLoad;
+	}
+	
+	/**
+	@return the fraction of the last block's deadline spent rendering it
+	**/
+	public double getLastLoad() {
+		return this.lastLoad;
+	}
+	
+	/**
+	@return the number of blocks in each 10% wide bucket of load, the last bucket counts the missed blocks
+	**/
+	public long[] getLoadHistogram() {
+		long[] counts = new long[HISTOGRAM_BUCKETS];
+		for (int i = 0; i < HISTOGRAM_BUCKETS; i++) counts[i] = this.histogram.get(i);
+		return counts;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d blocks, %d missed, average load %.1f%%, worst load %.1f%%",
+				this.getBlockCount(), this.getMissedCount(), 
+				this.getAverageLoad() * 100, this.getWorstLoad() * 100);
+	}
+}
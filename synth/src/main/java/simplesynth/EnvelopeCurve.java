@@ -0,0 +1,12 @@
+package simplesynth;
+
+/**
+Enum that represents the shape of each stage of an envelope
+**/
+
+public enum EnvelopeCurve {
+	
+	LINEAR, // The amplitude changes by the same amount each sample
+	EXPONENTIAL; // The amplitude changes by a fraction of the distance left each sample
+	
+}
@@ -0,0 +1,328 @@
+package simplesynth;
+
+/**
+EnvelopeGenerator produces the attack decay sustain release envelope for a note,
+with its times and sustain amplitude set using the EnvelopeParameters.
+Rather than calculating the envelope from the time since the note started, each stage 
+moves the amplitude on from one sample to the next, by adding an increment for linear 
+curves, or by a multiply for exponential curves. The number of samples left in each 
+stage is worked out when the stage starts, so whole blocks of amplitudes are rendered 
+in a loop without checking the stage every sample.
+Triggering the envelope while it is still playing restarts the attack from the current
+amplitude rather than from zero, so retriggered notes do not click.
+**/
+
+public class EnvelopeGenerator {
+	
+	// How far past the end of the stage the exponential curves aim, relative to the 
+	// max amplitude. Larger values give straighter curves
+	private static final double ATTACK_OVERSHOOT = 0.3;
+	private static final double DECAY_OVERSHOOT = 0.001;
+	
+	private static final long FOREVER = Long.MAX_VALUE; // Samples left in the sustain stage
+	
+	private final int sampleRate;
+	private EnvelopeCurve curve;
+	private double maxAmplitude;
+	
+	// Envelope values
+	private double a; // attack time (seconds)
+	private double d; // decay time (seconds)
+	private double s; // sustain amplitude relative to the max amplitude (0 to 100)
+	private double r; // release time (seconds)
+	
+	private EnvelopeStage stage;
+	private double level; // The amplitude of the next sample
+	private long samplesLeft; // Samples until the current stage ends
+	
+	// Linear curves add the increment each sample
+	private double increment;
+	// Exponential curves move towards the target, multiplying the distance left by the coefficient each sample
+	private double target;
+	private double coefficient;
+	
+	
+	/**
+	Constructor for a linear envelope with a max amplitude of 1
+	@param sampleRate the sample rate the envelope is rendered at
+	**/
+	public EnvelopeGenerator(int sampleRate) {
+		this(sampleRate, EnvelopeCurve.LINEAR);
+	}
+	
+	
+	/**
+	Constructor for an envelope with a max amplitude of 1
+	@param sampleRate the sample rate the envelope is rendered at
+	@param curve the shape of each stage
+	**/
+	public EnvelopeGenerator(int sampleRate, EnvelopeCurve curve) {
+		this.sampleRate = sampleRate;
+		this.curve = curve;
+		this.maxAmplitude = 1.0;
+		this.s = EnvelopeParameter.SUSTAIN.getMaxValue();
+		this.stage = EnvelopeStage.FINISHED;
+	}
+	
+	
+	/**
+	Starts the attack stage from the current amplitude, zero if the envelope has finished
+	**/
+	public void trigger() {
+		enter(EnvelopeStage.ATTACK);
+	}
+	
+	
+	/**
+	Starts the release stage from the current amplitude, if the key has not already been released
+	**/
+	public void release() {
+		if (this.isPressed()) enter(EnvelopeStage.RELEASE);
+	}
+	
+	
+	/**
+	Finishes the envelope immediately
+	**/
+	public void cancel() {
+		this.level = 0;
+		enter(EnvelopeStage.FINISHED);
+	}
+	
+	
+	/**
+	Renders the amplitude of each sample in a block. Rendering stops early if the 
+	envelope finishes part way through
+	@param out the array the amplitudes are written to
+	@param offset the index in out of the first amplitude
+	@param length the number of amplitudes to render
+	@return the number of amplitudes rendered
+	**/
+	public int render(float[] out, int offset, int length) {
+		
+		int count = 0;
+		
+		while (count < length && this.stage != EnvelopeStage.FINISHED) {
+			
+			// Rendering up to the end of the stage, or the end of the block
+			int segment = (int) Math.min(length - count, this.samplesLeft);
+			int start = offset + count;
+			
+			if (this.stage == EnvelopeStage.SUSTAIN) {
+				float amplitude = (float) this.level;
+				for (int i = start; i < start + segment; i++) out[i] = amplitude;
+				
+			} else if (this.curve == EnvelopeCurve.LINEAR) {
+				double amplitude = this.level;
+				double inc = this.increment;
+				for (int i = start; i < start + segment; i++) {
+					out[i] = (float) amplitude;
+					amplitude += inc;
+				}
+				this.level = amplitude;
+				
+			} else {
+				double distance = this.level - this.target;
+				double t = this.target;
+				double coef = this.coefficient;
+				for (int i = start; i < start + segment; i++) {
+					out[i] = (float) (t + distance);
+					distance *= coef;
+				}
+				this.level = t + distance;
+			}
+			
+			count += segment;
+			if (this.samplesLeft != FOREVER) this.samplesLeft -= segment;
+			
+			// Moving on to the next stage once this one has finished
+			if (this.samplesLeft == 0) enter(next(this.stage));
+		}
+		
+		return count;
+	}
+	
+	
+	/**
+	Starts a stage from the current amplitude, working out how long it lasts
+	and how the amplitude moves each sample
+	@param newStage the stage to start
+	**/
+	private void enter(EnvelopeStage newStage) {
+		
+		this.stage = newStage;
+		double sustainAmplitude = this.s * (this.maxAmplitude / 100.0);
+		
+		switch (newStage) {
+		case ATTACK:
+			startStage(this.maxAmplitude, this.a, this.maxAmplitude * (1 + ATTACK_OVERSHOOT), 0);
+			break;
+		case DECAY:
+			startStage(sustainAmplitude, this.d, sustainAmplitude - this.maxAmplitude * DECAY_OVERSHOOT, 
+					this.maxAmplitude);
+			break;
+		case SUSTAIN:
+			this.level = sustainAmplitude;
+			this.samplesLeft = FOREVER;
+			break;
+		case RELEASE:
+			startStage(0, this.r, -this.level * DECAY_OVERSHOOT, this.level);
+			break;
+		default:
+			this.level = 0;
+			this.samplesLeft = FOREVER;
+		}
+		
+		// Skipping stages with no length
+		if (this.samplesLeft == 0) enter(next(newStage));
+	}
+	
+	
+	/**
+	Works out the increment or coefficient that moves the amplitude from the start of the 
+	stage to its end amplitude in the stage's time, and the number of samples it will take 
+	from the current amplitude. The attack stage can start part way up if it is retriggered.
+	@param end the amplitude at the end of the stage
+	@param seconds the time the whole stage takes
+	@param overshoot the amplitude the exponential curve aims for, just past the end
+	@param from the amplitude the whole stage starts from
+	**/
+	private void startStage(double end, double seconds, double overshoot, double from) {
+		
+		double stageSamples = Math.ceil(seconds * this.sampleRate);
+		
+		if (stageSamples == 0 || this.level == end) {
+			this.level = end;
+			this.samplesLeft = 0;
+			return;
+		}
+		
+		if (this.curve == EnvelopeCurve.LINEAR) {
+			this.increment = (end - from) / stageSamples;
+			this.samplesLeft = (long) Math.ceil((end - this.level) / this.increment);
+		} else {
+			// (end - target) = (from - target) * coefficient ^ stageSamples
+			this.target = overshoot;
+			this.coefficient = Math.pow((end - overshoot) / (from - overshoot), 1.0 / stageSamples);
+			this.samplesLeft = (long) Math.ceil(
+					Math.log((end - overshoot) / (this.level - overshoot)) / Math.log(this.coefficient));
+		}
+		
+		// The current amplitude may already be past the end of the stage
+		if (this.samplesLeft <= 0) {
+			this.level = end;
+			this.samplesLeft = 0;
+		}
+	}
+	
+	
+	/**
+	@return the stage that follows a stage once it has finished
+	**/
+	private static EnvelopeStage next(EnvelopeStage stage) {
+		
+		switch (stage) {
+		case ATTACK:
+			return EnvelopeStage.DECAY;
+		case DECAY:
+			return EnvelopeStage.SUSTAIN;
+		default:
+			return EnvelopeStage.FINISHED; // The sustain stage only ends on release
+		}
+	}
+	
+	
+	// Setter methods
+	
+	/**
+	Sets the value of an envelope parameter, used from the next time a stage starts
+	@param param the parameter to set
+	@param value the new value, within the parameter's minimum and maximum value
+	@throws IllegalArgumentException if the value is outside of the parameter's range
+	**/
+	public void setParameter(EnvelopeParameter param, double value) {
+		
+		param.check(value);
+		
+		switch (param) {
+		case ATTACK:
+			this.a = value;
+			break;
+		case DECAY:
+			this.d = value;
+			break;
+		case SUSTAIN:
+			this.s = value;
+			break;
+		case RELEASE:
+			this.r = value;
+		}
+	}
+	
+	
+	/**
+	Sets the amplitude at the end of the attack stage, used from the next time a stage starts
+	@param maxAmplitude the max amplitude
+	**/
+	public void setMaxAmplitude(double maxAmplitude) {
+		this.maxAmplitude = maxAmplitude;
+	}
+	
+	
+	/**
+	Sets the shape of each stage, used from the next time a stage starts
+	@param curve the shape of each stage
+	**/
+	public void setCurve(EnvelopeCurve curve) {
+		this.curve = curve;
+	}
+	
+	// Getters
+	
+	/**
+	@param param the parameter to get
+	@return the value of the envelope parameter
+	**/
+	public double getParameter(EnvelopeParameter param) {
+		
+		switch (param) {
+		case ATTACK:
+			return this.a;
+		case DECAY:
+			return this.d;
+		case SUSTAIN:
+			return this.s;
+		default:
+			return this.r;
+		}
+	}
+	
+	/**
+	@return the stage the envelope is in
+	**/
+	public EnvelopeStage getStage() {
+		return this.stage;
+	}
+	
+	/**
+	@return the amplitude of the next sample
+	**/
+	public double getLevel() {
+		return this.level;
+	}
+	
+	/**
+	@return true if the envelope has not finished
+	**/
+	public boolean isActive() {
+		return this.stage != EnvelopeStage.FINISHED;
+	}
+	
+	/**
+	@return true if the envelope is in the attack, decay or sustain stage
+	**/
+	public boolean isPressed() {
+		return this.stage == EnvelopeStage.ATTACK || this.stage == EnvelopeStage.DECAY
+				|| this.stage == EnvelopeStage.SUSTAIN;
+	}
+}
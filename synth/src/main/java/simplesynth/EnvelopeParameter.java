@@ -1,3 +1,4 @@
+package simplesynth;
 
 /**
 Enum that represents the parameters (attack, decay, sustain, release)
@@ -41,4 +42,20 @@ public enum EnvelopeParameter {
 	}
 	
 	
+	/**
+	Checks a value is within the parameter's minimum and maximum value
+	@param value the value to check
+	@return the value
+	@throws IllegalArgumentException if the value is outside of the parameter's range, or not a number
+	**/
+	public double check(double value) {
+		
+		if (!(value >= this.minValue && value <= this.maxValue)) {
+			throw new IllegalArgumentException(this + " must be between " + this.minValue 
+					+ " and " + this.maxValue + ": " + value);
+		}
+		return value;
+	}
+	
+	
 }
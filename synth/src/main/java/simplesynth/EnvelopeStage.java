@@ -0,0 +1,16 @@
+package simplesynth;
+
+/**
+Enum that represents the stages of an envelope, which are
+passed through in order until the envelope has finished
+**/
+
+public enum EnvelopeStage {
+	
+	ATTACK, // Rising to the max amplitude while the key is pressed
+	DECAY, // Falling to the sustain amplitude while the key is pressed
+	SUSTAIN, // Holding the sustain amplitude while the key is pressed
+	RELEASE, // Falling to silence after the key is released
+	FINISHED; // Silent
+	
+}
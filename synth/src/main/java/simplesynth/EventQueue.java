@@ -0,0 +1,84 @@
+package simplesynth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+EventQueue holds events scheduled on a frame, counted in samples since rendering started.
+Any thread can add an event to the lock-free queue. The render thread moves them into a
+list kept in frame order, and applies each one when rendering reaches its frame, so a block
+is split at every event and the event lands on its exact sample. Events due before the
+frame being rendered, such as IMMEDIATE events, are applied as soon as rendering resumes
+**/
+
+class EventQueue {
+
+	static final long IMMEDIATE = -1; // Frame of events applied at the start of the next block
+
+	private final Queue<Event> added; // Events added by other threads
+	private final List<Event> pending; // Events taken off the queue, in frame order
+
+
+	EventQueue() {
+		this.added = new ConcurrentLinkedQueue<Event>();
+		this.pending = new ArrayList<Event>();
+	}
+
+
+	/**
+	Schedules an event. Can be called from any thread
+	@param event the event to apply on its frame
+	**/
+	void add(Event event) {
+		this.added.add(event);
+	}
+
+
+	/**
+	Applies every event due on or before a frame, and works out how far rendering
+	can go before the next event. Must only be called from the render thread
+	@param frame the frame about to be rendered
+	@param length the number of samples left to render in the block
+	@return the number of samples to render before calling again, between 1 and length
+	**/
+	int apply(long frame, int length) {
+
+		// Moving every added event into the pending list, keeping it in frame order.
+		// Events with the same frame stay in the order they were added
+		Event event;
+		while ((event = this.added.poll()) != null) {
+			int index = this.pending.size();
+			while (index > 0 && this.pending.get(index - 1).frame > event.frame) index--;
+			this.pending.add(index, event);
+		}
+
+		int applied = 0;
+		while (applied < this.pending.size() && this.pending.get(applied).frame <= frame) {
+			this.pending.get(applied++).apply();
+		}
+		if (applied > 0) this.pending.subList(0, applied).clear();
+
+		if (this.pending.isEmpty()) return length;
+		return (int) Math.min(length, this.pending.get(0).frame - frame);
+	}
+
+
+	/**
+	A change applied by the render thread on a frame
+	**/
+	abstract static class Event {
+
+		final long frame; // The frame the event is applied on
+
+		Event(long frame) {
+			this.frame = frame;
+		}
+
+		/**
+		Makes the change, called on the render thread
+		**/
+		abstract void apply();
+	}
+}
@@ -0,0 +1,13 @@
+package simplesynth;
+
+/**
+Enum that represents the ways a wavetable can be read between
+two of its stored values
+**/
+
+public enum Interpolation {
+	
+	LINEAR, // Straight line between the two nearest values
+	CUBIC; // Curve through the four nearest values
+	
+}
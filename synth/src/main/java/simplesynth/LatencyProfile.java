@@ -0,0 +1,113 @@
+package simplesynth;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+Enum that represents the trade off between latency and CPU used, by setting the block size,
+the line's buffer size, the sample rate and the control rate together. Smaller blocks
+and a smaller line buffer mean a key press is heard sooner, but each block has to be 
+rendered in less time and the overhead of each block is paid more often.
+The profile is chosen with the simplesynth.latency system property
+**/
+
+public enum LatencyProfile {
+	
+	LOW_LATENCY (64, 3, 48000, 16), // For live play, about 4 ms in the line
+	BALANCED (256, 4, 44100, 64), // About 23 ms in the line
+	HIGH_THROUGHPUT (2048, 4, 44100, 256); // For background generation, about 186 ms in the line
+	
+	public static final String PROPERTY = "simplesynth.latency";
+	
+	private final int blockSize;
+	private final int blocksInFlight;
+	private final int sampleRate;
+	private final int controlRate;
+	
+	/**
+	Constructor for a profile
+	@param blockSize the number of samples rendered and written to the line at a time
+	@param blocksInFlight the number of blocks the line's buffer holds
+	@param sampleRate the sample rate of the line and the oscillators
+	@param controlRate the number of samples each voice renders between envelope updates
+	**/
+	LatencyProfile(int blockSize, int blocksInFlight, int sampleRate, int controlRate) {
+		this.blockSize = blockSize;
+		this.blocksInFlight = blocksInFlight;
+		this.sampleRate = sampleRate;
+		this.controlRate = controlRate;
+	}
+	
+	
+	/**
+	@return the profile named by the simplesynth.latency system property, BALANCED if it is not set
+	@throws IllegalArgumentException if the property does not name a profile
+	**/
+	public static LatencyProfile fromProperty() {
+		return fromProperty(BALANCED);
+	}
+	
+	
+	/**
+	@param defaultProfile the profile used if the property is not set
+	@return the profile named by the simplesynth.latency system property
+	@throws IllegalArgumentException if the property does not name a profile
+	**/
+	public static LatencyProfile fromProperty(LatencyProfile defaultProfile) {
+		return LatencyProfile.valueOf(System.getProperty(PROPERTY, defaultProfile.name()).toUpperCase());
+	}
+	
+	
+	/**
+	Creates the format of a line using the profile's sample rate
+	@param format the sample format of the line
+	@return a mono audio format
+	**/
+	public AudioFormat toAudioFormat(SampleFormat format) {
+		return format.toAudioFormat(this.sampleRate, 1, true);
+	}
+	
+	// Getters
+	
+	/**
+	@return the number of samples rendered and written to the line at a time
+	**/
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+	
+	/**
+	@return the number of blocks the line's buffer holds
+	**/
+	public int getBlocksInFlight() {
+		return this.blocksInFlight;
+	}
+	
+	/**
+	@return the size of the line's buffer in frames
+	**/
+	public int getLineBufferFrames() {
+		return this.blockSize * this.blocksInFlight;
+	}
+	
+	/**
+	@return the sample rate of the line and the oscillators
+	**/
+	public int getSampleRate() {
+		return this.sampleRate;
+	}
+	
+	/**
+	@return the number of samples each voice renders between envelope updates
+	**/
+	public int getControlRate() {
+		return this.controlRate;
+	}
+	
+	/**
+	@return the time it takes the line's buffer to play, the delay before a key press is heard
+	**/
+	public double getLatencyMillis() {
+		return this.getLineBufferFrames() * 1000.0 / this.sampleRate;
+	}
+	
+}
@@ -0,0 +1,97 @@
+package simplesynth;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+LineSink writes to an audio line. A line only takes byte arrays, so samples are converted
+into one array created with the sink, and byte buffers backed by an array are written
+without a copy. Writing blocks until the line has room, which keeps the writer in step
+with the speaker.
+**/
+
+public class LineSink implements PcmSink {
+
+	private static final boolean SOFT_LIMIT = true; // Soft limit rather than hard clip
+
+	private final SourceDataLine line;
+	private final PcmConverter converter;
+	private final byte[] bytes; // Converted samples written to the line
+	private final ByteBuffer buffer; // Wraps the bytes, so samples are converted straight into them
+
+
+	/**
+	Constructor for the sink
+	@param line an open line, mono 16/24 bit or 32 bit float PCM. It is started if it is not running
+	@param blockSize the number of samples converted at a time
+	**/
+	public LineSink(SourceDataLine line, int blockSize) {
+
+		if (blockSize < 1) throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+		if (!line.isOpen()) throw new IllegalArgumentException("The line must be open");
+		if (line.getFormat().getChannels() != 1) throw new IllegalArgumentException("The format must be mono: " + line.getFormat());
+
+		this.line = line;
+		this.converter = new PcmConverter(line.getFormat(), SOFT_LIMIT);
+		this.bytes = new byte[blockSize * line.getFormat().getFrameSize()];
+		this.buffer = ByteBuffer.wrap(this.bytes);
+		if (!line.isRunning()) line.start();
+	}
+
+
+	@Override
+	public void write(FloatBuffer samples) {
+
+		while (samples.hasRemaining()) {
+			this.buffer.clear();
+			this.converter.convert(samples, this.buffer);
+			this.line.write(this.bytes, 0, this.buffer.position());
+		}
+	}
+
+
+	@Override
+	public void write(ByteBuffer pcm) {
+
+		if (pcm.hasArray()) {
+			this.line.write(pcm.array(), pcm.arrayOffset() + pcm.position(), pcm.remaining());
+			pcm.position(pcm.limit());
+			return;
+		}
+
+		// Copying direct buffers into the array a part at a time
+		while (pcm.hasRemaining()) {
+			int count = Math.min(pcm.remaining(), this.bytes.length);
+			pcm.get(this.bytes, 0, count);
+			this.line.write(this.bytes, 0, count);
+		}
+	}
+
+
+	/**
+	Does nothing, every sample is handed to the line as it is written
+	**/
+	@Override
+	public void flush() {
+	}
+
+
+	/**
+	Plays what is left in the line, then stops and closes it
+	**/
+	@Override
+	public void close() {
+		this.line.drain();
+		this.line.stop();
+		this.line.close();
+	}
+
+
+	@Override
+	public AudioFormat getFormat() {
+		return this.line.getFormat();
+	}
+}
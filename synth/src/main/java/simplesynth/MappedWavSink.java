@@ -0,0 +1,246 @@
+package simplesynth;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+MappedWavSink writes a mono WAV file by mapping it into memory a region at a time, and
+converting the samples straight into the mapped region. There is no byte array and no
+write call per block, the operating system writes the pages out in the background.
+The file is grown one region ahead of the samples, so regions are sized to the expected
+length of the file, and it is cut down to the samples written when the sink is closed, 
+when the sizes in the header are filled in. The last region is unmapped before the file 
+is cut down, as some systems will not change the size of a mapped file.
+OfflineRenderer writes with a WavWriter, a MappedWavSink can be passed to it as its sink.
+**/
+
+public class MappedWavSink implements PcmSink {
+
+	private static final boolean SOFT_LIMIT = true; // Soft limit rather than hard clip
+	private static final int DEFAULT_REGION_FRAMES = 1 << 16; // Samples mapped at a time when the length is not known
+	private static final int MAX_REGION_FRAMES = 1 << 22;
+	
+	// Releases a mapping straight away rather than when it is garbage collected, null if the JVM has no way to
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+	
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> type = Class.forName("sun.misc.Unsafe");
+			Field field = type.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Mappings are left for the garbage collector to release
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private final FileChannel channel;
+	private final PcmConverter converter;
+	private final int sampleRate;
+	private final int bytesPerSample;
+	private final long regionBytes; // Size of each mapped region
+
+	private MappedByteBuffer region; // The part of the file currently mapped, null once closed
+	private long regionStart; // Offset of the region from the start of the samples
+
+
+	/**
+	Constructor which creates the file and maps the first region, for a file of unknown length
+	@param file the file written to, replaced if it exists
+	@param sampleRate the sample rate of the samples
+	@param format the sample format stored in the file
+	@throws IOException
+	**/
+	public MappedWavSink(File file, int sampleRate, SampleFormat format) throws IOException {
+		this(file, sampleRate, format, DEFAULT_REGION_FRAMES);
+	}
+
+
+	/**
+	Constructor which creates the file and maps the first region. A file of the expected
+	length is mapped in one region, up to 4M samples a region
+	@param file the file written to, replaced if it exists
+	@param sampleRate the sample rate of the samples
+	@param format the sample format stored in the file
+	@param expectedFrames the number of samples the file is expected to hold
+	@throws IOException
+	**/
+	public MappedWavSink(File file, int sampleRate, SampleFormat format, long expectedFrames) throws IOException {
+
+		if (expectedFrames < 1) throw new IllegalArgumentException("Expected length must be positive: " + expectedFrames);
+
+		// Reading is needed to map the file for writing
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		// WAV files are always little endian
+		this.converter = new PcmConverter(format, false, SOFT_LIMIT);
+		this.sampleRate = sampleRate;
+		this.bytesPerSample = format.getBytesPerSample();
+		this.regionBytes = Math.min(expectedFrames, MAX_REGION_FRAMES) * this.bytesPerSample;
+
+		this.regionStart = 0;
+		this.region = map(0);
+	}
+
+
+	/**
+	Maps the region of the file holding the samples from an offset
+	@param start the offset from the start of the samples
+	@return the mapped region
+	@throws IOException
+	**/
+	private MappedByteBuffer map(long start) throws IOException {
+		return this.channel.map(FileChannel.MapMode.READ_WRITE, WavWriter.HEADER_SIZE + start, this.regionBytes);
+	}
+
+
+	/**
+	Maps the next region once the current one is full, and releases the full one so
+	a long render does not keep every region it has written mapped
+	@throws IOException
+	**/
+	private void nextRegion() throws IOException {
+		MappedByteBuffer full = this.region;
+		this.region = map(this.regionStart + this.regionBytes); // Mapped first, so a failure leaves the full region in use
+		this.regionStart += this.regionBytes;
+		release(full);
+	}
+
+
+	/**
+	Releases the mapped region, so the file can change size on systems which do not allow
+	a mapped file to. The region must not be used afterwards
+	**/
+	private void unmap() {
+		MappedByteBuffer mapped = this.region;
+		this.regionStart += mapped.position();
+		this.region = null;
+		release(mapped);
+	}
+
+
+	/**
+	Unmaps a region straight away rather than when it is garbage collected.
+	The region must not be used afterwards
+	@param mapped the region
+	**/
+	private static void release(MappedByteBuffer mapped) {
+		if (INVOKE_CLEANER == null) return;
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, mapped);
+		} catch (ReflectiveOperationException e) {
+			// The mapping is released when it is garbage collected instead
+		}
+	}
+
+
+	/**
+	@throws ClosedChannelException if the sink has been closed
+	**/
+	private void checkOpen() throws ClosedChannelException {
+		if (this.region == null) throw new ClosedChannelException();
+	}
+
+
+	@Override
+	public void write(FloatBuffer samples) throws IOException {
+
+		checkOpen();
+		while (samples.hasRemaining()) {
+			if (!this.region.hasRemaining()) nextRegion();
+			this.converter.convert(samples, this.region);
+		}
+	}
+
+
+	@Override
+	public void write(ByteBuffer pcm) throws IOException {
+
+		checkOpen();
+		if (pcm.remaining() % this.bytesPerSample != 0) {
+			throw new IllegalArgumentException("Not a whole number of samples: " + pcm.remaining() + " bytes");
+		}
+
+		int limit = pcm.limit();
+		while (pcm.hasRemaining()) {
+			if (!this.region.hasRemaining()) nextRegion();
+
+			// Copying as much as the region has room for
+			pcm.limit(pcm.position() + Math.min(pcm.remaining(), this.region.remaining()));
+			this.region.put(pcm);
+			pcm.limit(limit);
+		}
+	}
+
+
+	/**
+	Does nothing, the samples are already in the file's memory and are
+	written out by the operating system
+	**/
+	@Override
+	public void flush() {
+	}
+
+
+	/**
+	Unmaps the file, cuts it down to the samples written, fills in the sizes in the header 
+	and closes the file
+	@throws IOException
+	**/
+	@Override
+	public void close() throws IOException {
+
+		if (this.region == null) return; // Already closed
+
+		try {
+			long dataSize = getFrameCount() * this.bytesPerSample;
+			unmap();
+			this.channel.truncate(WavWriter.HEADER_SIZE + dataSize);
+
+			ByteBuffer header = ByteBuffer.wrap(WavWriter.header(this.converter.getFormat(), this.sampleRate, dataSize));
+			while (header.hasRemaining()) {
+				this.channel.write(header, header.position());
+			}
+		} finally {
+			this.channel.close();
+		}
+	}
+
+
+	// Getters
+
+	/**
+	@return the number of samples written
+	**/
+	public long getFrameCount() {
+		long position = this.regionStart + ((this.region != null) ? this.region.position() : 0);
+		return position / this.bytesPerSample;
+	}
+
+	/**
+	@return the format of the samples in the file
+	**/
+	@Override
+	public AudioFormat getFormat() {
+		return this.converter.getFormat().toAudioFormat(this.sampleRate, 1, false);
+	}
+}
@@ -0,0 +1,279 @@
+package simplesynth;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.Sequencer;
+import javax.sound.midi.ShortMessage;
+
+/**
+MidiInput receives MIDI messages, from a keyboard or a sequencer playing a MIDI file, and
+plays them on a VoiceEngine. Note on and note off messages start and release notes, with the
+velocity setting the note's max amplitude, and control change messages set the envelope used
+by the following notes. Notes are pitched by the engine's TuningTable. Messages on every channel are played.
+Each message's timestamp is turned into an engine frame, and the note is queued for that frame, 
+so notes keep the exact spacing they were played with rather than the spacing they arrived with. 
+Notes are delayed by a fixed number of frames, normally one block, so they are queued before
+the engine renders the block they land in. Messages without a timestamp are timed by when they arrive
+**/
+
+public class MidiInput implements Receiver {
+	
+	// Controllers setting the envelope (sound controllers 3, 4, 6 and 10)
+	public static final int RELEASE_CONTROLLER = 72;
+	public static final int ATTACK_CONTROLLER = 73;
+	public static final int DECAY_CONTROLLER = 75;
+	public static final int SUSTAIN_CONTROLLER = 79;
+	public static final int ALL_NOTES_OFF = 123;
+	
+	private static final double MAX_VALUE = 127.0; // Largest velocity or controller value
+	
+	private final VoiceEngine engine;
+	private final int sampleRate;
+	private final int delayFrames;
+	private double maxAmplitude;
+	
+	// Envelope of the following notes
+	private double a, d, s, r;
+	
+	private final boolean[] held; // Keys which have been pressed and not released
+	
+	// A timestamp and the frame it was played on, to work out the frame of later timestamps
+	private boolean anchored;
+	private long anchorMicros;
+	private long anchorFrame;
+	
+	
+	/**
+	Constructor for MidiInput
+	@param engine the engine the notes are played on
+	@param profile the latency profile the engine is rendered with, notes are delayed by one of its blocks
+	@param maxAmplitude the max amplitude of a note with the highest velocity
+	@param a attack time of the notes until it is changed by a controller (seconds)
+	@param d decay time of the notes until it is changed by a controller (seconds)
+	@param s sustain amplitude of the notes until it is changed by a controller (0 to 100)
+	@param r release time of the notes until it is changed by a controller (seconds)
+	**/
+	public MidiInput(VoiceEngine engine, LatencyProfile profile, double maxAmplitude,
+			double a, double d, double s, double r) {
+		this(engine, profile.getSampleRate(), profile.getBlockSize(), maxAmplitude, a, d, s, r);
+	}
+	
+	
+	/**
+	Constructor for MidiInput
+	@param engine the engine the notes are played on
+	@param sampleRate the sample rate the engine is rendered at
+	@param delayFrames the number of frames each note is delayed by, at least the engine's block size
+	@param maxAmplitude the max amplitude of a note with the highest velocity
+	@param a attack time of the notes until it is changed by a controller (seconds)
+	@param d decay time of the notes until it is changed by a controller (seconds)
+	@param s sustain amplitude of the notes until it is changed by a controller (0 to 100)
+	@param r release time of the notes until it is changed by a controller (seconds)
+	**/
+	public MidiInput(VoiceEngine engine, int sampleRate, int delayFrames, double maxAmplitude,
+			double a, double d, double s, double r) {
+		this.engine = engine;
+		this.sampleRate = sampleRate;
+		this.delayFrames = delayFrames;
+		this.maxAmplitude = maxAmplitude;
+		this.a = EnvelopeParameter.ATTACK.check(a);
+		this.d = EnvelopeParameter.DECAY.check(d);
+		this.s = EnvelopeParameter.SUSTAIN.check(s);
+		this.r = EnvelopeParameter.RELEASE.check(r);
+		this.held = new boolean[TuningTable.KEY_COUNT];
+	}
+	
+	
+	/**
+	Plays a MIDI message on the engine
+	@param message the message
+	@param timeStamp the time of the message in microseconds, or -1 if it has no timestamp
+	**/
+	@Override
+	public synchronized void send(MidiMessage message, long timeStamp) {
+		
+		if (!(message instanceof ShortMessage)) return; // System exclusive and meta messages are ignored
+		
+		ShortMessage shortMessage = (ShortMessage) message;
+		long micros = (timeStamp >= 0) ? timeStamp : System.nanoTime() / 1000;
+		
+		switch (shortMessage.getCommand()) {
+		case ShortMessage.NOTE_ON:
+			if (shortMessage.getData2() > 0) {
+				noteOn(shortMessage.getData1(), shortMessage.getData2(), toFrame(micros));
+			} else {
+				// A note on with no velocity is a note off
+				noteOff(shortMessage.getData1(), toFrame(micros));
+			}
+			break;
+		case ShortMessage.NOTE_OFF:
+			noteOff(shortMessage.getData1(), toFrame(micros));
+			break;
+		case ShortMessage.CONTROL_CHANGE:
+			controlChange(shortMessage.getData1(), shortMessage.getData2(), toFrame(micros));
+			break;
+		default:
+			// Other messages are not used by the synth
+		}
+	}
+	
+	
+	/**
+	Starts a note with the current envelope, pitched by the engine's tuning
+	@param key the MIDI key number
+	@param velocity how hard the key was pressed (1 to 127)
+	@param frame the frame the note starts on
+	**/
+	private void noteOn(int key, int velocity, long frame) {
+		double amplitude = this.maxAmplitude * (velocity / MAX_VALUE);
+		this.engine.keyOn(key, amplitude, this.a, this.d, this.s, this.r, frame);
+		this.held[key] = true;
+	}
+	
+	
+	/**
+	Releases a note
+	@param key the MIDI key number
+	@param frame the frame the note is released on
+	**/
+	private void noteOff(int key, long frame) {
+		this.engine.noteOff(key, frame);
+		this.held[key] = false;
+	}
+	
+	
+	/**
+	Sets an envelope value from a controller, or releases every held note
+	@param controller the controller number
+	@param value the value of the controller (0 to 127)
+	@param frame the frame of the message
+	**/
+	private void controlChange(int controller, int value, long frame) {
+		
+		switch (controller) {
+		case ATTACK_CONTROLLER:
+			this.a = scale(EnvelopeParameter.ATTACK, value);
+			break;
+		case DECAY_CONTROLLER:
+			this.d = scale(EnvelopeParameter.DECAY, value);
+			break;
+		case SUSTAIN_CONTROLLER:
+			this.s = scale(EnvelopeParameter.SUSTAIN, value);
+			break;
+		case RELEASE_CONTROLLER:
+			this.r = scale(EnvelopeParameter.RELEASE, value);
+			break;
+		case ALL_NOTES_OFF:
+			for (int key = 0; key < TuningTable.KEY_COUNT; key++) {
+				if (this.held[key]) noteOff(key, frame);
+			}
+			break;
+		default:
+			// Other controllers are not used by the synth
+		}
+	}
+	
+	
+	/**
+	@return the controller value scaled to the parameter's range
+	**/
+	private static double scale(EnvelopeParameter param, int value) {
+		return param.getMinValue() + (param.getMaxValue() - param.getMinValue()) * (value / MAX_VALUE);
+	}
+	
+	
+	/**
+	Works out the engine frame of a timestamp. The first timestamp is played one delay
+	after the engine's current frame, and later timestamps keep their distance from it.
+	If the MIDI clock drifts more than one delay behind or ahead of the engine, so a 
+	timestamp's frame has already been rendered or notes would keep falling later, 
+	the timestamp becomes the new anchor
+	@param micros the timestamp in microseconds
+	@return the frame the message is played on
+	**/
+	private long toFrame(long micros) {
+		
+		long earliest = this.engine.getFramePosition() + this.delayFrames;
+		long frame = this.anchorFrame + (micros - this.anchorMicros) * this.sampleRate / 1000000;
+		
+		if (!this.anchored || frame < earliest - this.delayFrames || frame > earliest + this.delayFrames) {
+			this.anchored = true;
+			this.anchorMicros = micros;
+			this.anchorFrame = earliest;
+			return earliest;
+		}
+		return frame;
+	}
+	
+	
+	/**
+	Releases every held note. The engine is not closed
+	**/
+	@Override
+	public synchronized void close() {
+		for (int key = 0; key < TuningTable.KEY_COUNT; key++) {
+			if (this.held[key]) noteOff(key, EventQueue.IMMEDIATE);
+		}
+	}
+	
+	
+	/**
+	Plays a MIDI file through this input, using the system's sequencer
+	@param file the MIDI file
+	@return the sequencer, which is already started and can be stopped and closed
+	@throws MidiUnavailableException if there is no sequencer
+	@throws InvalidMidiDataException if the file is not a MIDI file
+	@throws IOException if the file cannot be read
+	**/
+	public Sequencer play(File file) throws MidiUnavailableException, InvalidMidiDataException, IOException {
+		
+		// Not connecting the sequencer to the system's synth, it only plays through this input
+		Sequencer sequencer = MidiSystem.getSequencer(false);
+		sequencer.open();
+		sequencer.setSequence(MidiSystem.getSequence(file));
+		sequencer.getTransmitter().setReceiver(this);
+		sequencer.start();
+		return sequencer;
+	}
+	
+	// Setters
+	
+	/**
+	Sets an envelope value used by the following notes, until it is changed again here or by a controller
+	@param param the envelope parameter
+	@param value the new value, within the parameter's range
+	@throws IllegalArgumentException if the value is outside of the parameter's range
+	**/
+	public synchronized void setParameter(EnvelopeParameter param, double value) {
+		
+		param.check(value);
+		switch (param) {
+		case ATTACK:
+			this.a = value;
+			break;
+		case DECAY:
+			this.d = value;
+			break;
+		case SUSTAIN:
+			this.s = value;
+			break;
+		case RELEASE:
+			this.r = value;
+		}
+	}
+	
+	
+	/**
+	Sets the max amplitude of the following notes played with the highest velocity
+	@param maxAmplitude the max amplitude
+	**/
+	public synchronized void setMaxAmplitude(double maxAmplitude) {
+		this.maxAmplitude = maxAmplitude;
+	}
+}
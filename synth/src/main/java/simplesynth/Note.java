@@ -0,0 +1,61 @@
+package simplesynth;
+
+/**
+Enum that represents musical notes, their frequencies come from their MIDI key in a TuningTable
+**/
+
+public enum Note {
+
+	// Notes of an octave, from C
+	C(false),
+	C_sharp(true),
+	D(false),
+	D_sharp(true),
+	E(false),
+	F(false),
+	F_sharp(true),
+	G(false),
+	G_sharp(true),
+	A(false),
+	A_sharp(true),
+	B(false);
+	
+	private final boolean isSharp;
+	
+	
+	/**
+	Constructor 
+	@param isSharp true if the note is X#
+	**/
+	Note(boolean isSharp) {
+		this.isSharp = isSharp;
+	}
+	
+	/**
+	@return true if the note is X#
+	**/
+	boolean isSharp() {
+		return this.isSharp;
+	}
+	
+	
+	/**
+	Returns the frequency of the note in an octave, in equal temperament with A4 at 440 Hz
+	@param octave the current octave of the synth
+	@return the notes frequency relative to the current octave
+	**/
+	double getFreq(int octave) {
+		return TuningTable.standardFrequency(getKey(octave));
+	}
+	
+	
+	/**
+	Returns a number identifying the note in an octave, which is the MIDI note number
+	(C in octave 0 is 12, middle C is 60)
+	@param octave the octave of the note
+	@return the key number of the note in the octave
+	**/
+	int getKey(int octave) {
+		return (octave + 1) * values().length + this.ordinal();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,186 @@
+package simplesynth;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+NoteCache holds notes already rendered by an OfflineRenderer, so a note played again with
+the same oscillator mix, pitch, envelope and length is copied from the cache rather than
+synthesised again. Notes are stored at full scale, and scaled by their max amplitude as they
+are copied, so notes that only differ in loudness share an entry. The cache is limited to a
+number of bytes, and once it is full the least recently played notes are evicted.
+One cache can be shared by several renderers, such as the threads of a BatchRenderer.
+**/
+
+public class NoteCache {
+
+	private final long maxBytes;
+	private final LinkedHashMap<Key, float[]> notes; // In order of use, least recent first
+	private long bytes; // Size of every note held
+
+	// Counts of how the cache has been used
+	private long hits;
+	private long misses;
+	private long evictions;
+
+
+	/**
+	Constructor for the cache
+	@param maxBytes the most memory the rendered notes can take up
+	**/
+	public NoteCache(long maxBytes) {
+
+		if (maxBytes < 1) throw new IllegalArgumentException("Cache size must be positive: " + maxBytes);
+
+		this.maxBytes = maxBytes;
+		this.notes = new LinkedHashMap<Key, float[]>(16, 0.75f, true);
+	}
+
+
+	/**
+	Finds a rendered note, marking it as the most recently used
+	@param key identifies the note
+	@return the samples of the note at full scale, which must not be changed, or null if it is not held
+	**/
+	synchronized float[] get(Key key) {
+
+		float[] samples = this.notes.get(key);
+		if (samples != null) {
+			this.hits++;
+		} else {
+			this.misses++;
+		}
+		return samples;
+	}
+
+
+	/**
+	Adds a rendered note, evicting the least recently used notes until it fits.
+	Notes larger than the whole cache are not added
+	@param key identifies the note
+	@param samples the samples of the note at full scale, which must not be changed afterwards
+	**/
+	synchronized void put(Key key, float[] samples) {
+
+		long size = sizeOf(samples);
+		if (size > this.maxBytes) return;
+
+		float[] previous = this.notes.put(key, samples);
+		this.bytes += size;
+		if (previous != null) this.bytes -= sizeOf(previous);
+
+		// Evicting from the least recently used end
+		Iterator<Map.Entry<Key, float[]>> eldest = this.notes.entrySet().iterator();
+		while (this.bytes > this.maxBytes) {
+			float[] evicted = eldest.next().getValue();
+			eldest.remove();
+			this.bytes -= sizeOf(evicted);
+			this.evictions++;
+		}
+	}
+
+
+	/**
+	@return the number of samples in the longest note the cache can hold
+	**/
+	int getMaxFrames() {
+		return (int) Math.min(Integer.MAX_VALUE, this.maxBytes / Float.BYTES);
+	}
+
+
+	/**
+	@return the memory taken up by a note's samples
+	**/
+	private static long sizeOf(float[] samples) {
+		return (long) samples.length * Float.BYTES;
+	}
+
+	// Getters
+
+	/**
+	@return the number of notes held
+	**/
+	public synchronized int getNoteCount() {
+		return this.notes.size();
+	}
+
+	/**
+	@return the memory taken up by the notes held
+	**/
+	public synchronized long getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	@return the number of notes copied from the cache
+	**/
+	public synchronized long getHitCount() {
+		return this.hits;
+	}
+
+	/**
+	@return the number of notes which had to be synthesised
+	**/
+	public synchronized long getMissCount() {
+		return this.misses;
+	}
+
+	/**
+	@return the number of notes evicted to make room for others
+	**/
+	public synchronized long getEvictionCount() {
+		return this.evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%d notes (%.1f of %.1f MB), %d hits, %d misses, %d evictions",
+				this.notes.size(), this.bytes / 1e6, this.maxBytes / 1e6, this.hits, this.misses, this.evictions);
+	}
+
+
+	/**
+	Identifies a rendered note by everything that changes its samples, other than its max amplitude
+	**/
+	static final class Key {
+
+		private final double[] values; // The mix, pitch, envelope and renderer settings
+		private final long durationFrames; // Samples from the note starting to its release
+		private final OscillatorType type;
+		private final int hash;
+
+		/**
+		Constructor for the key of a note played by a renderer
+		@param event the note
+		@param durationFrames the number of samples from the note starting to its release
+		@param sampleRate the sample rate of the renderer
+		@param controlRate the control rate of the renderer
+		@param type the kind of oscillator the renderer's voices are built from
+		**/
+		Key(NoteEvent event, long durationFrames, int sampleRate, int controlRate, OscillatorType type) {
+			this.values = new double[] {
+					event.getFreq(),
+					event.getAttack(), event.getDecay(), event.getSustain(), event.getRelease(),
+					event.getSquareAmplitude(), event.getSawtoothAmplitude(), event.getSineAmplitude(),
+					sampleRate, controlRate };
+			this.durationFrames = durationFrames;
+			this.type = type;
+			this.hash = 31 * (31 * Arrays.hashCode(this.values) + Long.hashCode(durationFrames)) + type.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) return false;
+			Key key = (Key) other;
+			return this.durationFrames == key.durationFrames && this.type == key.type
+					&& Arrays.equals(this.values, key.values);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+}
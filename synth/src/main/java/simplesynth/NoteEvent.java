@@ -0,0 +1,154 @@
+package simplesynth;
+
+/**
+NoteEvent represents a note in a sequence rendered by the OfflineRenderer.
+It holds when the note starts and how long it is held for, along with the envelope
+and the oscillator mix the note is played with
+**/
+
+public class NoteEvent {
+	
+	private final Note note;
+	private final int octave;
+	private final double start; // Time the key is pressed (seconds)
+	private final double duration; // Time the key is held for (seconds)
+	private final double maxAmplitude;
+	
+	// Envelope values
+	private final double a; // attack time 
+	private final double d; // decay time
+	private final double s; // sustain amplitude
+	private final double r; // release time
+	
+	// Amplitude of each oscillator
+	private final double squareAmplitude;
+	private final double sawtoothAmplitude;
+	private final double sineAmplitude;
+	
+	
+	/**
+	Constructor for a note event
+	@param note the musical note
+	@param octave the octave of the note
+	@param start the time the key is pressed (seconds)
+	@param duration the time the key is held for, the release envelope follows (seconds)
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@param a attack time (seconds)
+	@param d decay time (seconds)
+	@param s sustain amplitude relative to the max amplitude (0 to 100)
+	@param r release time (seconds)
+	@param squareAmplitude the amplitude of the square wave oscillator
+	@param sawtoothAmplitude the amplitude of the sawtooth wave oscillator
+	@param sineAmplitude the amplitude of the sine wave oscillator
+	**/
+	public NoteEvent(Note note, int octave, double start, double duration, double maxAmplitude,
+			double a, double d, double s, double r,
+			double squareAmplitude, double sawtoothAmplitude, double sineAmplitude) {
+		
+		this.note = note;
+		this.octave = octave;
+		this.start = start;
+		this.duration = duration;
+		this.maxAmplitude = maxAmplitude;
+		this.a = a;
+		this.d = d;
+		this.s = s;
+		this.r = r;
+		this.squareAmplitude = squareAmplitude;
+		this.sawtoothAmplitude = sawtoothAmplitude;
+		this.sineAmplitude = sineAmplitude;
+	}
+	
+	// Getters
+	
+	/**
+	@return the musical note
+	**/
+	public Note getNote() {
+		return this.note;
+	}
+	
+	/**
+	@return the octave of the note
+	**/
+	public int getOctave() {
+		return this.octave;
+	}
+	
+	/**
+	@return the frequency of the note in its octave
+	**/
+	public double getFreq() {
+		return this.note.getFreq(this.octave);
+	}
+	
+	/**
+	@return the time the key is pressed (seconds)
+	**/
+	public double getStart() {
+		return this.start;
+	}
+	
+	/**
+	@return the time the key is held for (seconds)
+	**/
+	public double getDuration() {
+		return this.duration;
+	}
+	
+	/**
+	@return the amplitude at the end of the attack envelope
+	**/
+	public double getMaxAmplitude() {
+		return this.maxAmplitude;
+	}
+	
+	/**
+	@return attack time (seconds)
+	**/
+	public double getAttack() {
+		return this.a;
+	}
+	
+	/**
+	@return decay time (seconds)
+	**/
+	public double getDecay() {
+		return this.d;
+	}
+	
+	/**
+	@return sustain amplitude relative to the max amplitude (0 to 100)
+	**/
+	public double getSustain() {
+		return this.s;
+	}
+	
+	/**
+	@return release time (seconds)
+	**/
+	public double getRelease() {
+		return this.r;
+	}
+	
+	/**
+	@return the amplitude of the square wave oscillator
+	**/
+	public double getSquareAmplitude() {
+		return this.squareAmplitude;
+	}
+	
+	/**
+	@return the amplitude of the sawtooth wave oscillator
+	**/
+	public double getSawtoothAmplitude() {
+		return this.sawtoothAmplitude;
+	}
+	
+	/**
+	@return the amplitude of the sine wave oscillator
+	**/
+	public double getSineAmplitude() {
+		return this.sineAmplitude;
+	}
+}
@@ -0,0 +1,444 @@
+package simplesynth;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+OfflineRenderer renders a sequence of notes to a WAV file, or any other PcmSink, as fast 
+as the CPU allows, without a line or a GUI. Each note is played on a Voice with its own AdditiveOscillator,
+so notes in the sequence can use different envelopes and oscillator mixes. Notes start 
+and are released on the exact sample they are due, and the file is written as it is 
+rendered. The report says how many times faster than realtime the render was.
+Given a NoteCache, a note played again with the same mix, pitch, envelope and length is 
+copied from the cache and scaled to its max amplitude, rather than synthesised again. 
+Notes which are not held are synthesised, and added to the cache once they finish.
+**/
+
+public class OfflineRenderer {
+	
+	private static final int DEFAULT_BLOCK_SIZE = 1024; // Samples written at a time
+	
+	private final int sampleRate;
+	private final int blockSize; // Samples written at a time
+	private final int controlRate;
+	private final OscillatorType type;
+	private final SampleFormat format;
+	private final NoteCache cache; // null when every note is synthesised
+	
+	private final List<Voice> freeVoices; // Voices created by earlier notes, ready to reuse
+	private final float[] mixBlock;
+	private final FloatBuffer mixBuffer; // Wraps the mix block, to hand it to the sink
+	private final float[] noteBlock; // A note rendered on its own, before it is recorded and mixed
+	
+	
+	/**
+	Constructor for a renderer using the standard oscillators and 16 bit PCM
+	@param sampleRate the sample rate of the rendered file
+	**/
+	public OfflineRenderer(int sampleRate) {
+		this(sampleRate, OscillatorType.STANDARD, SampleFormat.PCM_16);
+	}
+	
+	
+	/**
+	Constructor for a renderer
+	@param sampleRate the sample rate of the rendered file
+	@param type the kind of oscillator each voice's AdditiveOscillator is built from
+	@param format the sample format stored in the file
+	**/
+	public OfflineRenderer(int sampleRate, OscillatorType type, SampleFormat format) {
+		this(sampleRate, DEFAULT_BLOCK_SIZE, Voice.DEFAULT_CONTROL_RATE, type, format);
+	}
+	
+	
+	/**
+	Constructor for a renderer using the block size, sample rate and control rate of a latency profile
+	@param profile sets the block size, the sample rate and the control rate
+	@param type the kind of oscillator each voice's AdditiveOscillator is built from
+	@param format the sample format stored in the file
+	**/
+	public OfflineRenderer(LatencyProfile profile, OscillatorType type, SampleFormat format) {
+		this(profile, type, format, null);
+	}
+	
+	
+	/**
+	Constructor for a renderer which copies repeated notes from a cache
+	@param profile sets the block size, the sample rate and the control rate
+	@param type the kind of oscillator each voice's AdditiveOscillator is built from
+	@param format the sample format stored in the file
+	@param cache holds rendered notes, may be shared with other renderers, or null to synthesise every note
+	**/
+	public OfflineRenderer(LatencyProfile profile, OscillatorType type, SampleFormat format, NoteCache cache) {
+		this(profile.getSampleRate(), profile.getBlockSize(), profile.getControlRate(), type, format, cache);
+	}
+	
+	
+	private OfflineRenderer(int sampleRate, int blockSize, int controlRate, OscillatorType type, SampleFormat format) {
+		this(sampleRate, blockSize, controlRate, type, format, null);
+	}
+	
+	
+	private OfflineRenderer(int sampleRate, int blockSize, int controlRate, OscillatorType type, 
+			SampleFormat format, NoteCache cache) {
+		this.sampleRate = sampleRate;
+		this.blockSize = blockSize;
+		this.controlRate = controlRate;
+		this.type = type;
+		this.format = format;
+		this.cache = cache;
+		this.freeVoices = new ArrayList<Voice>();
+		this.mixBlock = new float[blockSize];
+		this.mixBuffer = FloatBuffer.wrap(this.mixBlock);
+		this.noteBlock = new float[blockSize];
+	}
+	
+	
+	/**
+	Renders the notes to a WAV file, streamed by a WavWriter. The file ends once the last 
+	note has been released. To convert the samples straight into the file's memory instead, 
+	render to a MappedWavSink
+	@param events the notes to render, in any order
+	@param file the file written to
+	@return the report of the render
+	@throws IOException
+	**/
+	public Report render(List<NoteEvent> events, File file) throws IOException {
+		
+		PcmSink sink = new WavWriter(file, this.sampleRate, this.format);
+		try {
+			return render(events, sink);
+		} finally {
+			sink.close();
+		}
+	}
+	
+	
+	/**
+	Renders the notes to a sink, which is flushed but not closed. The audio ends 
+	once the last note has been released
+	@param events the notes to render, in any order
+	@param sink the sink written to, at the renderer's sample rate
+	@return the report of the render
+	@throws IOException
+	**/
+	public Report render(List<NoteEvent> events, PcmSink sink) throws IOException {
+		
+		if (sink.getFormat().getSampleRate() != this.sampleRate) {
+			throw new IllegalArgumentException("Sink sample rate " + sink.getFormat().getSampleRate() 
+					+ " does not match the renderer's " + this.sampleRate);
+		}
+		
+		long startNanos = System.nanoTime();
+		
+		// Sorting the notes by when they start
+		List<NoteEvent> sorted = new ArrayList<NoteEvent>(events);
+		Collections.sort(sorted, new Comparator<NoteEvent>() {
+			@Override
+			public int compare(NoteEvent e1, NoteEvent e2) {
+				return Double.compare(e1.getStart(), e2.getStart());
+			}
+		});
+		
+		List<PlayingNote> playing = new ArrayList<PlayingNote>();
+		int next = 0; // Index of the next note to start
+		long position = 0; // Current sample
+		
+		while (next < sorted.size() || !playing.isEmpty()) {
+			
+			// Starting and releasing the notes due at the current sample
+			while (next < sorted.size() && toSamples(sorted.get(next).getStart()) <= position) {
+				playing.add(startNote(sorted.get(next++)));
+			}
+			for (PlayingNote note : playing) {
+				if (note.releaseTime <= position) note.release();
+			}
+			
+			// Rendering up to the end of the block, or the next sample something is due 
+			int blockOffset = (int) (position % this.blockSize);
+			long end = position + (this.blockSize - blockOffset);
+			if (next < sorted.size()) end = Math.min(end, toSamples(sorted.get(next).getStart()));
+			for (PlayingNote note : playing) {
+				if (note.releaseTime > position) end = Math.min(end, note.releaseTime);
+			}
+			int length = (int) (end - position);
+			
+			Arrays.fill(this.mixBlock, blockOffset, blockOffset + length, 0);
+			for (int i = playing.size() - 1; i >= 0; i--) {
+				PlayingNote note = playing.get(i);
+				note.mix(this.mixBlock, blockOffset, length);
+				
+				if (note.isFinished()) {
+					// The note has finished, so its voice can be reused
+					playing.remove(i);
+					note.finish();
+				}
+			}
+			position = end;
+			
+			// Writing the block once it is full, or the last notes have finished
+			int filled = blockOffset + length;
+			if (filled == this.blockSize || (next == sorted.size() && playing.isEmpty())) {
+				this.mixBuffer.clear().limit(filled);
+				sink.write(this.mixBuffer);
+			}
+		}
+		sink.flush();
+		
+		return new Report(position, this.sampleRate, System.nanoTime() - startNanos);
+	}
+	
+	
+	/**
+	Starts a note, copying it from the cache if it is held there
+	@param event the note to start
+	@return the playing note
+	**/
+	private PlayingNote startNote(NoteEvent event) {
+		
+		long startTime = toSamples(event.getStart());
+		long releaseTime = toSamples(event.getStart() + event.getDuration());
+		if (this.cache == null) return new PlayingNote(releaseTime, startVoice(event, event.getMaxAmplitude()));
+		
+		NoteCache.Key key = new NoteCache.Key(event, releaseTime - startTime, this.sampleRate, this.controlRate, this.type);
+		float gain = (float) (event.getMaxAmplitude() / Voice.FULL_SCALE_AMPLITUDE);
+		float[] samples = this.cache.get(key);
+		if (samples != null) return new PlayingNote(releaseTime, samples, gain);
+		
+		// Rendering at full scale, so the note can be stored whatever its max amplitude
+		return new PlayingNote(releaseTime, startVoice(event, Voice.FULL_SCALE_AMPLITUDE), key, gain);
+	}
+	
+	
+	/**
+	Starts a note on a free voice, creating a new voice if none are free
+	@param event the note to start
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@return the voice playing the note
+	**/
+	private Voice startVoice(NoteEvent event, double maxAmplitude) {
+		
+		Voice voice = this.freeVoices.isEmpty() 
+				? new Voice(new AdditiveOscillator(this.sampleRate, this.type), this.sampleRate, this.controlRate)
+				: this.freeVoices.remove(this.freeVoices.size() - 1);
+		
+		((AdditiveOscillator) voice.getOscillator()).setIndivdualAmplitudes(
+				event.getSquareAmplitude(), event.getSawtoothAmplitude(), event.getSineAmplitude());
+		voice.noteOn(event.getNote().getKey(event.getOctave()), event.getFreq(), maxAmplitude,
+				event.getAttack(), event.getDecay(), event.getSustain(), event.getRelease());
+		return voice;
+	}
+	
+	
+	/**
+	@return the time in seconds as a number of samples
+	**/
+	private long toSamples(double seconds) {
+		return Math.round(seconds * this.sampleRate);
+	}
+	
+	
+	/**
+	A note being rendered, either synthesised on a voice or copied from the cache.
+	A synthesised note can be recorded, to be added to the cache once it finishes
+	**/
+	private class PlayingNote {
+		
+		final long releaseTime; // Sample the note is released at
+		private final Voice voice; // null when the note is copied from the cache
+		private final NoteCache.Key key; // Identifies the note in the cache, null when not recording
+		private float[] samples; // The note copied from the cache, or being recorded
+		private final float gain; // Scales a note rendered at full scale to its max amplitude
+		private int position; // Number of samples of the note played
+		private boolean finished;
+		
+		/**
+		Constructor for a note synthesised on a voice at its max amplitude, which is not recorded
+		**/
+		PlayingNote(long releaseTime, Voice voice) {
+			this(releaseTime, voice, null, null, 1);
+		}
+		
+		/**
+		Constructor for a note synthesised at full scale, and recorded for the cache
+		**/
+		PlayingNote(long releaseTime, Voice voice, NoteCache.Key key, float gain) {
+			this(releaseTime, voice, key, new float[blockSize], gain);
+		}
+		
+		/**
+		Constructor for a note copied from the cache
+		**/
+		PlayingNote(long releaseTime, float[] samples, float gain) {
+			this(releaseTime, null, null, samples, gain);
+		}
+		
+		private PlayingNote(long releaseTime, Voice voice, NoteCache.Key key, float[] samples, float gain) {
+			this.releaseTime = releaseTime;
+			this.voice = voice;
+			this.key = key;
+			this.samples = samples;
+			this.gain = gain;
+		}
+		
+		/**
+		Releases a synthesised note, a copied note already holds its release
+		**/
+		void release() {
+			if (this.voice != null) this.voice.release();
+		}
+		
+		/**
+		Renders the note and adds it to the output
+		**/
+		void mix(float[] out, int offset, int length) {
+			
+			if (this.voice == null) {
+				// Copying the note from the cache
+				int count = Math.min(length, this.samples.length - this.position);
+				for (int i = 0; i < count; i++) {
+					out[offset + i] += this.samples[this.position + i] * this.gain;
+				}
+				this.position += count;
+				this.finished = (this.position == this.samples.length);
+				
+			} else if (this.key == null) {
+				this.voice.mix(out, offset, length);
+				this.finished = !this.voice.isActive();
+				
+			} else {
+				// Rendering the note on its own, so it can be recorded before it is mixed
+				Arrays.fill(noteBlock, 0, length, 0);
+				int count = this.voice.mix(noteBlock, 0, length);
+				for (int i = 0; i < count; i++) {
+					out[offset + i] += noteBlock[i] * this.gain;
+				}
+				record(count);
+				this.finished = !this.voice.isActive();
+			}
+		}
+		
+		/**
+		Adds the samples just rendered to the recording, growing it as needed.
+		Notes too long for the cache stop being recorded
+		**/
+		private void record(int count) {
+			
+			if (this.samples == null) return;
+			if (this.position + count > cache.getMaxFrames()) {
+				this.samples = null;
+				return;
+			}
+			
+			if (this.position + count > this.samples.length) {
+				this.samples = Arrays.copyOf(this.samples, 
+						(int) Math.min(cache.getMaxFrames(), Math.max(this.position + count, 2L * this.samples.length)));
+			}
+			System.arraycopy(noteBlock, 0, this.samples, this.position, count);
+			this.position += count;
+		}
+		
+		/**
+		@return true once the note has played to the end of its release
+		**/
+		boolean isFinished() {
+			return this.finished;
+		}
+		
+		/**
+		Frees the voice of a synthesised note, and adds a recorded note to the cache
+		**/
+		void finish() {
+			
+			if (this.voice == null) return;
+			freeVoices.add(this.voice);
+			if (this.key != null && this.samples != null) {
+				cache.put(this.key, Arrays.copyOf(this.samples, this.position));
+			}
+		}
+	}
+	
+	
+	/**
+	Report of a finished render
+	**/
+	public static class Report {
+		
+		private final long frameCount;
+		private final int sampleRate;
+		private final long elapsedNanos;
+		
+		Report(long frameCount, int sampleRate, long elapsedNanos) {
+			this.frameCount = frameCount;
+			this.sampleRate = sampleRate;
+			this.elapsedNanos = elapsedNanos;
+		}
+		
+		/**
+		@return the number of samples rendered
+		**/
+		public long getFrameCount() {
+			return this.frameCount;
+		}
+		
+		/**
+		@return the length of the rendered audio (seconds)
+		**/
+		public double getAudioSeconds() {
+			return (double) this.frameCount / this.sampleRate;
+		}
+		
+		/**
+		@return the time the render took (seconds)
+		**/
+		public double getElapsedSeconds() {
+			return this.elapsedNanos / 1e9;
+		}
+		
+		/**
+		@return how many seconds of audio were rendered per second, 
+		above 1 is faster than realtime
+		**/
+		public double getRealtimeFactor() {
+			return this.getAudioSeconds() / this.getElapsedSeconds();
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("Rendered %.2f s of audio in %.3f s (%.1fx realtime)",
+					this.getAudioSeconds(), this.getElapsedSeconds(), this.getRealtimeFactor());
+		}
+	}
+	
+	
+	/**
+	Renders a C major scale to the file given, as an example of an offline render
+	@param args the path of the WAV file to write
+	**/
+	public static void main(String[] args) throws IOException {
+		
+		if (args.length != 1) {
+			System.err.println("Usage: java -cp simplesynth.jar simplesynth.OfflineRenderer <output.wav>");
+			return;
+		}
+		
+		Note[] scale = { Note.C, Note.D, Note.E, Note.F, Note.G, Note.A, Note.B };
+		List<NoteEvent> events = new ArrayList<NoteEvent>();
+		for (int i = 0; i < scale.length; i++) {
+			events.add(new NoteEvent(scale[i], 4, i * 0.5, 0.4, 50,
+					0.01, 0.1, 70, 0.3, 0, 20, 80));
+		}
+		
+		// Rendering in large blocks, as nobody is waiting to hear the notes
+		LatencyProfile profile = LatencyProfile.fromProperty(LatencyProfile.HIGH_THROUGHPUT);
+		Report report = new OfflineRenderer(profile, OscillatorType.STANDARD, SampleFormat.PCM_16)
+				.render(events, new File(args[0]));
+		System.out.println(report + ", " + RenderBackend.selected() + " render backend");
+	}
+}
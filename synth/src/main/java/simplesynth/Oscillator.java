@@ -0,0 +1,171 @@
+package simplesynth;
+
+/**
+Oscillator class by default acts as a sine wave oscillator
+**/
+
+class Oscillator {
+
+	// Constants
+	protected final double DEFAULT_SINE_CONSTANT = 2.0;
+	private final static double MIDDLE_C = 261.1; // Freq for middle c
+	private final static double DEFAULT_AMPLITUDE = 100;
+	
+	// Inner loops of the phase accumulator render, chosen when the synth starts
+	protected static final RenderKernel KERNEL = RenderBackend.kernel();
+	
+	protected int sampleRate;
+	protected double freq;
+	protected double amplitude;
+	
+	// Phase accumulator, the position within the current period (0 to 1)
+	protected double phase;
+	protected double phaseIncrement; // Amount the phase moves each sample (freq / sampleRate)
+
+	// Constructors
+
+	/**
+	Constructor for Oscillator by default sets freq to middle c, and amplitude to 100
+	@param sampleRate sets the sample rate of the oscillator
+	**/
+	protected Oscillator (int sampleRate) {
+		//frequency default is middle C
+		this(sampleRate, MIDDLE_C, DEFAULT_AMPLITUDE);
+	}
+	
+	
+	/**
+	Constructor for Oscillator
+	@param sampleRate sets the sample rate of the oscillator
+	@param freq sets the frequency of the oscillator
+	@param amplitude sets the amplitude of the oscillator
+	**/
+	protected Oscillator (int sampleRate, double freq, double amplitude) {
+		this.sampleRate = sampleRate;
+		this.freq = freq;
+		this.amplitude = amplitude;
+		this.phase = 0;
+		this.phaseIncrement = freq / (double) sampleRate;
+	}
+	
+	
+	/**
+	Creates the frequency as a byte where at time t
+	@param t is the time at which the wave is at (1 sec => t=sampleRate)
+	@return The byte created by the sine oscillator at time t
+	**/
+	protected byte createWave(double t) {
+		return sineWave(t, DEFAULT_SINE_CONSTANT);
+	}
+	
+	
+	/**
+	Creates the frequency of the sine wave oscillator at time t, using the constant
+	specified
+	@param t the time of the sine wave to return the frequency at
+	@param constant default is 2.0, can be used to create square waves using fourier series
+	@return the byte containing the frequency of the sine wave at time t
+	**/
+	protected byte sineWave(double t, double constant) {
+		double period = (double) this.sampleRate / this.freq;
+	    double angle = constant * Math.PI * (t / period);
+	    return  (byte) (Math.sin(angle) * amplitude); 
+	}
+	
+	
+	/**
+	Renders a block of samples from the sine oscillator into the output array.
+	The period is calculated once for the block rather than once per sample
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param t the time of the first sample (1 sec => t=sampleRate)
+	**/
+	public void render(float[] out, int offset, int length, double t) {
+		double period = (double) this.sampleRate / this.freq;
+		double angleStep = DEFAULT_SINE_CONSTANT * Math.PI / period;
+		double amp = this.amplitude;
+		
+		for (int i = 0; i < length; i++) {
+			out[offset + i] = (float) (Math.sin(angleStep * (t + i)) * amp);
+		}
+	}
+	
+	
+	/**
+	Renders a block of samples from the sine oscillator using the phase accumulator,
+	continuing from where the previous block finished. The phase is advanced by the
+	phase increment each sample, so no division is needed and the pitch stays stable
+	however long the note is held
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	**/
+	public void render(float[] out, int offset, int length) {
+		this.phase = KERNEL.sine(out, offset, length, this.phase, this.phaseIncrement, this.amplitude);
+	}
+	
+	
+	/**
+	Calculates the PolyBLEP (polynomial band-limited step) correction for a
+	waveform that drops by 2 at the end of its period. Subtracting the 
+	correction from the naive waveform smooths the jump over the samples either 
+	side of it, which removes most of the aliasing the jump would cause
+	@param phase the position within the period (0 to 1)
+	@param increment the phase increment per sample
+	@return the correction at the phase
+	**/
+	protected static double polyBlep(double phase, double increment) {
+		
+		if (phase < increment) {
+			// Sample just after the jump
+			double x = phase / increment;
+			return x + x - x * x - 1.0;
+		} else if (phase > 1.0 - increment) {
+			// Sample just before the jump
+			double x = (phase - 1.0) / increment;
+			return x * x + x + x + 1.0;
+		}
+		return 0;
+	}
+	
+	
+	/**
+	Resets the phase accumulator to the start of the period
+	**/
+	public void resetPhase() {
+		this.phase = 0;
+	}
+	   
+		
+	// Setter methods
+	
+	/**
+	Sets the frequency of the oscillator
+	@param freq is the frequency the oscillator will be set to
+	**/
+	public void setFreq(double freq) {
+		this.freq = freq;
+		this.phaseIncrement = freq / (double) this.sampleRate;
+	}
+	
+	
+	/**
+	Sets the frequency of the oscillator from the amount its phase moves each sample,
+	such as one looked up in a TuningTable, without dividing by the sample rate
+	@param phaseIncrement the frequency divided by the sample rate
+	**/
+	public void setPhaseIncrement(double phaseIncrement) {
+		this.phaseIncrement = phaseIncrement;
+		this.freq = phaseIncrement * this.sampleRate;
+	}
+	
+	
+	/**
+	Sets the amplitude of the oscillator
+	@param amplitude is the amplitude the oscillator will be set to
+	**/
+	public void setAmplitude(double amplitude) {
+		this.amplitude = amplitude;
+	}
+}
\ No newline at end of file
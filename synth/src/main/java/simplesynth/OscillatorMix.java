@@ -0,0 +1,58 @@
+package simplesynth;
+
+/**
+OscillatorMix holds the amplitude of each oscillator in an AdditiveOscillator.
+It is immutable, so a new mix can be handed to the audio thread in an event,
+without the audio thread ever seeing half of an update
+**/
+
+public final class OscillatorMix {
+	
+	private final double squareAmplitude;
+	private final double sawtoothAmplitude;
+	private final double sineAmplitude;
+	
+	/**
+	Constructor for a mix
+	@param squareAmplitude the amplitude of the square wave oscillator
+	@param sawtoothAmplitude the amplitude of the sawtooth wave oscillator
+	@param sineAmplitude the amplitude of the sine wave oscillator
+	**/
+	public OscillatorMix(double squareAmplitude, double sawtoothAmplitude, double sineAmplitude) {
+		this.squareAmplitude = squareAmplitude;
+		this.sawtoothAmplitude = sawtoothAmplitude;
+		this.sineAmplitude = sineAmplitude;
+	}
+	
+	
+	/**
+	Sets the amplitude of each individual oscillator to the mix
+	@param osc the oscillator the mix is applied to
+	**/
+	public void applyTo(AdditiveOscillator osc) {
+		osc.setIndivdualAmplitudes(this.squareAmplitude, this.sawtoothAmplitude, this.sineAmplitude);
+	}
+	
+	// Getters
+	
+	/**
+	@return the amplitude of the square wave oscillator
+	**/
+	public double getSquareAmplitude() {
+		return this.squareAmplitude;
+	}
+	
+	/**
+	@return the amplitude of the sawtooth wave oscillator
+	**/
+	public double getSawtoothAmplitude() {
+		return this.sawtoothAmplitude;
+	}
+	
+	/**
+	@return the amplitude of the sine wave oscillator
+	**/
+	public double getSineAmplitude() {
+		return this.sineAmplitude;
+	}
+}
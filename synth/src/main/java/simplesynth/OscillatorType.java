@@ -0,0 +1,48 @@
+package simplesynth;
+
+/**
+Enum that represents the kinds of oscillator the AdditiveOscillator can be built from,
+each type can create an oscillator for any waveform
+**/
+
+public enum OscillatorType {
+	
+	STANDARD, // Calculates each sample (Oscillator, SawtoothOscillator, SquareOscillator)
+	WAVETABLE_LINEAR, // Reads a shared table with linear interpolation
+	WAVETABLE_CUBIC, // Reads a shared table with cubic interpolation
+	BAND_LIMITED; // Sawtooth and square jumps are smoothed with PolyBLEP to remove aliasing
+	
+	/**
+	Creates a new oscillator of this type
+	@param waveform the waveform the oscillator will produce
+	@param sampleRate the sample rate of the oscillator
+	@return the new oscillator
+	**/
+	public Oscillator create(Waveform waveform, int sampleRate) {
+		
+		switch (this) {
+		case WAVETABLE_LINEAR:
+			return new WavetableOscillator(sampleRate, waveform, Interpolation.LINEAR);
+		case WAVETABLE_CUBIC:
+			return new WavetableOscillator(sampleRate, waveform, Interpolation.CUBIC);
+		case BAND_LIMITED:
+			switch (waveform) {
+			case SAWTOOTH:
+				return new BandLimitedSawtoothOscillator(sampleRate);
+			case SQUARE:
+				return new BandLimitedSquareOscillator(sampleRate);
+			default:
+				return new Oscillator(sampleRate); // A sine wave has no jumps to alias
+			}
+		default:
+			switch (waveform) {
+			case SAWTOOTH:
+				return new SawtoothOscillator(sampleRate);
+			case SQUARE:
+				return new SquareOscillator(sampleRate);
+			default:
+				return new Oscillator(sampleRate);
+			}
+		}
+	}
+}
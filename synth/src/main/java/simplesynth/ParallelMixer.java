@@ -0,0 +1,178 @@
+package simplesynth;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ParallelMixer renders the playing voices of a VoiceEngine on several cores. Each block, 
+the playing voices are dealt out in turn between the partitions, one partition per thread. 
+The render thread renders the first partition itself while a fixed pool of worker threads 
+render the rest, each into its own accumulator, so the threads never write to the same array. 
+Once every partition is rendered the accumulators are added to the output in partition order, 
+so the same notes always give exactly the same samples.
+If a worker fails to render its partition, the block is still finished and the failure
+is thrown on the render thread.
+The workers are created once and wait between blocks, so rendering a block does not allocate
+**/
+
+class ParallelMixer {
+	
+	private static final int SPINS = 1000; // Times the render thread checks for the workers before yielding
+	
+	private final Worker[] workers; // Render partitions 1 and up, the render thread renders partition 0
+	private final Voice[][] partitions;
+	private final int[] partitionSizes;
+	private float[][] accumulators; // One per partition, grown if a longer block is rendered
+	private int length; // Samples in the current block
+	
+	private final AtomicInteger remaining; // Workers still rendering the current block
+	private final AtomicReference<Throwable> failure; // The first exception thrown by a worker this block
+	private volatile long generation; // Incremented for each block, to wake the workers
+	private volatile boolean running;
+	
+	
+	/**
+	Constructor for ParallelMixer, which starts its worker threads
+	@param threads the number of threads rendering each block, including the render thread
+	@param maxVoices the most voices a block can have
+	**/
+	ParallelMixer(int threads, int maxVoices) {
+		
+		this.partitions = new Voice[threads][maxVoices];
+		this.partitionSizes = new int[threads];
+		this.accumulators = new float[threads][0];
+		this.remaining = new AtomicInteger();
+		this.failure = new AtomicReference<Throwable>();
+		this.running = true;
+		
+		this.workers = new Worker[threads - 1];
+		for (int i = 0; i < this.workers.length; i++) {
+			this.workers[i] = new Worker(i + 1);
+			this.workers[i].start();
+		}
+	}
+	
+	
+	/**
+	Mixes every playing voice into the output. Must only be called from the render thread
+	@param voices the voices to mix
+	@param out the array the mixed samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@throws RuntimeException or Error thrown by a voice rendered on a worker
+	**/
+	void mix(Voice[] voices, float[] out, int offset, int length) {
+		
+		// Dealing the playing voices out between the partitions
+		Arrays.fill(this.partitionSizes, 0);
+		int next = 0;
+		for (Voice voice : voices) {
+			if (voice.isActive()) {
+				this.partitions[next][this.partitionSizes[next]++] = voice;
+				next = (next + 1) % this.partitions.length;
+			}
+		}
+		
+		if (this.accumulators[0].length < length) {
+			for (int i = 0; i < this.accumulators.length; i++) this.accumulators[i] = new float[length];
+		}
+		this.length = length;
+		
+		// Waking the workers, the volatile write makes the partitions visible to them
+		this.failure.set(null); // Left over if partition 0 failed in the last block
+		this.remaining.set(this.workers.length);
+		this.generation++;
+		for (Worker worker : this.workers) LockSupport.unpark(worker);
+		
+		try {
+			renderPartition(0);
+		} finally {
+			// Waiting for the workers, which should finish at about the same time, even if
+			// partition 0 failed, so they are not still rendering when the next block starts
+			int spins = 0;
+			while (this.remaining.get() > 0) {
+				if (++spins < SPINS) {
+					Thread.onSpinWait();
+				} else {
+					Thread.yield();
+				}
+			}
+		}
+		
+		// Throwing a worker's failure on the render thread
+		Throwable failed = this.failure.getAndSet(null);
+		if (failed instanceof RuntimeException) throw (RuntimeException) failed;
+		if (failed != null) throw (Error) failed;
+		
+		// Summing the partitions in order, so the result does not depend on which finished first
+		System.arraycopy(this.accumulators[0], 0, out, offset, length);
+		for (int p = 1; p < this.accumulators.length; p++) {
+			float[] accumulator = this.accumulators[p];
+			for (int i = 0; i < length; i++) out[offset + i] += accumulator[i];
+		}
+	}
+	
+	
+	/**
+	Renders the voices of one partition into its accumulator
+	@param partition the index of the partition
+	**/
+	private void renderPartition(int partition) {
+		
+		float[] accumulator = this.accumulators[partition];
+		Voice[] voices = this.partitions[partition];
+		
+		Arrays.fill(accumulator, 0, this.length, 0);
+		for (int i = 0; i < this.partitionSizes[partition]; i++) {
+			voices[i].mix(accumulator, 0, this.length);
+		}
+	}
+	
+	
+	/**
+	Stops the worker threads
+	**/
+	void close() {
+		this.running = false;
+		for (Worker worker : this.workers) LockSupport.unpark(worker);
+	}
+	
+	
+	/**
+	Thread which renders one partition each block, and waits between blocks
+	**/
+	private class Worker extends Thread {
+		
+		private final int partition;
+		
+		Worker(int partition) {
+			super("ParallelMixer-" + partition);
+			this.partition = partition;
+			this.setDaemon(true); // Not keeping the program running
+		}
+		
+		@Override
+		public void run() {
+			
+			long rendered = 0; // The last block this worker rendered
+			
+			while (running) {
+				if (generation == rendered) {
+					LockSupport.park(this);
+					continue;
+				}
+				rendered = generation;
+				
+				try {
+					renderPartition(this.partition);
+				} catch (RuntimeException | Error e) {
+					failure.compareAndSet(null, e); // Keeping the first, for the render thread to throw
+				} finally {
+					remaining.decrementAndGet();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package simplesynth;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+PcmConverter converts blocks of float samples into PCM bytes. The synth mixes 
+with floats where full scale is -1 to 1, and converts each block once, just before 
+it is written out. Samples outside of full scale are either hard clipped or 
+soft limited, which leaves quiet samples alone and rounds off loud peaks 
+so they approach full scale without going past it.
+**/
+
+public class PcmConverter {
+	
+	// Samples quieter than this are not changed by the soft limiter
+	private static final float SOFT_LIMIT_KNEE = 0.75f;
+	
+	private final SampleFormat format;
+	private final boolean bigEndian;
+	private final boolean softLimit;
+	
+	
+	/**
+	Constructor for the converter
+	@param format the sample format the bytes are converted to
+	@param bigEndian true if the bytes of each sample are in big endian order
+	@param softLimit true to soft limit samples, false to hard clip them
+	**/
+	public PcmConverter(SampleFormat format, boolean bigEndian, boolean softLimit) {
+		this.format = format;
+		this.bigEndian = bigEndian;
+		this.softLimit = softLimit;
+	}
+	
+	
+	/**
+	Constructor for a converter matching an audio format
+	@param af the audio format the bytes are converted to
+	@param softLimit true to soft limit samples, false to hard clip them
+	**/
+	public PcmConverter(AudioFormat af, boolean softLimit) {
+		this(SampleFormat.fromAudioFormat(af), af.isBigEndian(), softLimit);
+	}
+	
+	
+	/**
+	Converts a block of float samples to PCM bytes
+	@param in the float samples (full scale is -1 to 1)
+	@param offset the index in in of the first sample to convert
+	@param length the number of samples to convert
+	@param out the array the bytes are written to
+	@param outOffset the index in out of the first byte
+	@return the number of bytes written
+	**/
+	public int convert(float[] in, int offset, int length, byte[] out, int outOffset) {
+		
+		int o = outOffset;
+		
+		switch (this.format) {
+		case PCM_16:
+			for (int i = 0; i < length; i++) {
+				int sample = Math.round(limit(in[offset + i]) * Short.MAX_VALUE);
+				o = write(sample, 2, out, o);
+			}
+			break;
+		case PCM_24:
+			for (int i = 0; i < length; i++) {
+				int sample = Math.round(limit(in[offset + i]) * 0x7FFFFF);
+				o = write(sample, 3, out, o);
+			}
+			break;
+		default:
+			for (int i = 0; i < length; i++) {
+				int sample = Float.floatToRawIntBits(limit(in[offset + i]));
+				o = write(sample, 4, out, o);
+			}
+		}
+		
+		return o - outOffset;
+	}
+	
+	
+	/**
+	Converts float samples to PCM bytes written straight into a byte buffer, such as a direct
+	or memory mapped buffer, without going through a byte array. Samples are converted from 
+	the float buffer's position until either buffer is full, and both positions are moved on.
+	The bytes are in the converter's byte order, whatever the byte buffer's order
+	@param in the float samples (full scale is -1 to 1)
+	@param out the buffer the bytes are written to
+	@return the number of samples converted
+	**/
+	public int convert(FloatBuffer in, ByteBuffer out) {
+		
+		int length = Math.min(in.remaining(), out.remaining() / this.format.getBytesPerSample());
+		
+		// Using the buffer's own short and int writes, in the converter's byte order
+		ByteOrder order = out.order();
+		out.order(this.bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+		
+		switch (this.format) {
+		case PCM_16:
+			for (int i = 0; i < length; i++) {
+				out.putShort((short) Math.round(limit(in.get()) * Short.MAX_VALUE));
+			}
+			break;
+		case PCM_24:
+			for (int i = 0; i < length; i++) {
+				int sample = Math.round(limit(in.get()) * 0x7FFFFF);
+				if (this.bigEndian) {
+					out.put((byte) (sample >> 16)).put((byte) (sample >> 8)).put((byte) sample);
+				} else {
+					out.put((byte) sample).put((byte) (sample >> 8)).put((byte) (sample >> 16));
+				}
+			}
+			break;
+		default:
+			for (int i = 0; i < length; i++) {
+				out.putInt(Float.floatToRawIntBits(limit(in.get())));
+			}
+		}
+		
+		out.order(order);
+		return length;
+	}
+	
+	
+	/**
+	Keeps a sample within full scale
+	@param x the sample
+	@return the clipped or soft limited sample
+	**/
+	private float limit(float x) {
+		
+		if (this.softLimit) {
+			float magnitude = Math.abs(x);
+			if (magnitude <= SOFT_LIMIT_KNEE) return x;
+			
+			// Above the knee the sample is curved towards full scale
+			float headroom = 1.0f - SOFT_LIMIT_KNEE;
+			float limited = SOFT_LIMIT_KNEE + headroom * (float) Math.tanh((magnitude - SOFT_LIMIT_KNEE) / headroom);
+			return (x < 0) ? -limited : limited;
+		}
+		
+		if (x > 1.0f) return 1.0f;
+		if (x < -1.0f) return -1.0f;
+		return x;
+	}
+	
+	
+	/**
+	Writes the lowest bytes of a sample in the converter's byte order
+	@param sample the sample
+	@param bytes the number of bytes to write
+	@param out the array the bytes are written to
+	@param o the index in out of the first byte
+	@return the index after the last byte written
+	**/
+	private int write(int sample, int bytes, byte[] out, int o) {
+		
+		if (this.bigEndian) {
+			for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+				out[o++] = (byte) (sample >> shift);
+			}
+		} else {
+			for (int shift = 0; shift < bytes * 8; shift += 8) {
+				out[o++] = (byte) (sample >> shift);
+			}
+		}
+		return o;
+	}
+	
+	// Getters
+	
+	/**
+	@return the sample format the bytes are converted to
+	**/
+	public SampleFormat getFormat() {
+		return this.format;
+	}
+	
+	/**
+	@return true if the bytes of each sample are in big endian order
+	**/
+	public boolean isBigEndian() {
+		return this.bigEndian;
+	}
+}
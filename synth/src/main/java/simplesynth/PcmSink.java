@@ -0,0 +1,55 @@
+package simplesynth;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+PcmSink is somewhere rendered mono audio is streamed to, such as the audio line, a file
+or a socket. Float samples are converted to the sink's PCM format as they are written,
+straight into the sink's own buffer where it has one, so the synth never needs a byte array
+of its own. Bytes already in the sink's format can be written too. The buffers are only read
+during the call, so a renderer can keep reusing the same buffer for every block.
+**/
+
+public interface PcmSink extends Closeable, Flushable {
+
+	/**
+	Converts the float samples from the buffer's position to its limit and writes them.
+	The buffer's position is moved to its limit
+	@param samples the samples (full scale is -1 to 1)
+	@throws IOException
+	**/
+	void write(FloatBuffer samples) throws IOException;
+
+	/**
+	Writes PCM bytes in the sink's format from the buffer's position to its limit.
+	The buffer's position is moved to its limit
+	@param pcm the bytes, a whole number of samples
+	@throws IOException
+	**/
+	void write(ByteBuffer pcm) throws IOException;
+
+	/**
+	Passes on any samples the sink is still holding
+	@throws IOException
+	**/
+	@Override
+	void flush() throws IOException;
+
+	/**
+	Writes any samples the sink is still holding and closes it
+	@throws IOException
+	**/
+	@Override
+	void close() throws IOException;
+
+	/**
+	@return the format the sink writes, always mono
+	**/
+	AudioFormat getFormat();
+}
@@ -0,0 +1,89 @@
+package simplesynth;
+
+/**
+Enum that represents the ways blocks of samples can be rendered. The backend is 
+chosen once, when the synth starts, using the simplesynth.render system property:
+"scalar", "vector", or "auto" (the default) which uses the vector backend if it is available. 
+The vector backend uses the incubating Vector API, so it is only available when the
+synth is built with the vector profile and run with --add-modules jdk.incubator.vector,
+otherwise the scalar backend is used
+**/
+
+public enum RenderBackend {
+	
+	SCALAR, // One sample at a time
+	VECTOR; // Several samples per instruction, using jdk.incubator.vector
+	
+	public static final String PROPERTY = "simplesynth.render";
+	private static final String VECTOR_KERNEL_CLASS = "simplesynth.VectorRenderKernel";
+	
+	private static final RenderKernel SCALAR_KERNEL = new ScalarRenderKernel();
+	private static final RenderKernel VECTOR_KERNEL = loadVectorKernel(); // null if not available
+	private static final RenderBackend SELECTED = select(System.getProperty(PROPERTY, "auto"));
+	
+	
+	/**
+	Loads the vector kernel, which fails if it was not compiled or the Vector API module is not present
+	@return the vector kernel, or null if it is not available
+	**/
+	private static RenderKernel loadVectorKernel() {
+		try {
+			return (RenderKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+	
+	
+	/**
+	Chooses the backend from the value of the system property
+	@param name "scalar", "vector" or "auto"
+	@return the chosen backend
+	@throws IllegalStateException if the vector backend was asked for but is not available
+	**/
+	private static RenderBackend select(String name) {
+		
+		if (name.equalsIgnoreCase("auto")) {
+			return VECTOR.isAvailable() ? VECTOR : SCALAR;
+		}
+		
+		RenderBackend backend = RenderBackend.valueOf(name.toUpperCase());
+		if (!backend.isAvailable()) {
+			throw new IllegalStateException(backend + " render backend is not available, run with "
+					+ "--add-modules jdk.incubator.vector and a build from the vector profile");
+		}
+		return backend;
+	}
+	
+	
+	/**
+	@return true if the backend can be used
+	**/
+	public boolean isAvailable() {
+		return this == SCALAR || VECTOR_KERNEL != null;
+	}
+	
+	
+	/**
+	@return the backend chosen when the synth started
+	**/
+	public static RenderBackend selected() {
+		return SELECTED;
+	}
+	
+	
+	/**
+	@return the kernel of the backend, or null if it is not available
+	**/
+	RenderKernel getKernel() {
+		return this == VECTOR ? VECTOR_KERNEL : SCALAR_KERNEL;
+	}
+	
+	
+	/**
+	@return the kernel of the backend chosen when the synth started
+	**/
+	static RenderKernel kernel() {
+		return SELECTED.getKernel();
+	}
+}
@@ -0,0 +1,86 @@
+package simplesynth;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+RenderJob is one score rendered by the BatchRenderer: a list of notes, each with its own
+envelope and oscillator mix, and where the audio is written. The audio goes either to a
+WAV file, which is created when the job runs, or to a sink the job was given, which is
+closed once the job has rendered.
+**/
+
+public class RenderJob {
+
+	private final String name;
+	private final List<NoteEvent> events;
+	private final File file; // null when writing to a sink
+	private final PcmSink sink; // null when writing to a file
+
+
+	/**
+	Constructor for a job writing a WAV file
+	@param name identifies the job in the report
+	@param events the notes to render, in any order
+	@param file the WAV file written to, replaced if it exists
+	**/
+	public RenderJob(String name, List<NoteEvent> events, File file) {
+		this(name, events, file, null);
+	}
+
+
+	/**
+	Constructor for a job writing to a sink
+	@param name identifies the job in the report
+	@param events the notes to render, in any order
+	@param sink the sink written to, closed once the job has rendered
+	**/
+	public RenderJob(String name, List<NoteEvent> events, PcmSink sink) {
+		this(name, events, null, sink);
+	}
+
+
+	private RenderJob(String name, List<NoteEvent> events, File file, PcmSink sink) {
+		this.name = name;
+		this.events = Collections.unmodifiableList(new ArrayList<NoteEvent>(events));
+		this.file = file;
+		this.sink = sink;
+	}
+
+
+	/**
+	Renders the job
+	@param renderer the renderer used, which must not be used by another thread at the same time
+	@return the report of the render
+	@throws IOException
+	**/
+	OfflineRenderer.Report render(OfflineRenderer renderer) throws IOException {
+
+		if (this.file != null) return renderer.render(this.events, this.file);
+
+		try {
+			return renderer.render(this.events, this.sink);
+		} finally {
+			this.sink.close();
+		}
+	}
+
+	// Getters
+
+	/**
+	@return identifies the job in the report
+	**/
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	@return the notes to render
+	**/
+	public List<NoteEvent> getEvents() {
+		return this.events;
+	}
+}
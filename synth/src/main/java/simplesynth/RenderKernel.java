@@ -0,0 +1,59 @@
+package simplesynth;
+
+/**
+RenderKernel holds the inner loops used to render blocks of samples. The oscillators 
+and voices hand their loops to the kernel chosen by RenderBackend, so the same 
+loops can be computed one sample at a time or several samples per instruction.
+The oscillator loops continue from a phase (0 to 1) and return the phase after the 
+last sample, so they can be used in place of an oscillator's phase accumulator
+**/
+
+interface RenderKernel {
+	
+	/**
+	Renders a block of a sine wave
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param phase the phase of the first sample
+	@param increment the amount the phase moves each sample
+	@param amplitude the amplitude of the wave
+	@return the phase of the sample after the block
+	**/
+	double sine(float[] out, int offset, int length, double phase, double increment, double amplitude);
+	
+	/**
+	Renders a block of a sawtooth wave, rising from 0 to twice the amplitude each period
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param phase the phase of the first sample
+	@param increment the amount the phase moves each sample
+	@param amplitude the amplitude of the wave
+	@return the phase of the sample after the block
+	**/
+	double sawtooth(float[] out, int offset, int length, double phase, double increment, double amplitude);
+	
+	/**
+	Renders a block of a square wave, high for the first half of each period and 0 for the second
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param phase the phase of the first sample
+	@param increment the amount the phase moves each sample
+	@param amplitude the amplitude of the wave
+	@return the phase of the sample after the block
+	**/
+	double square(float[] out, int offset, int length, double phase, double increment, double amplitude);
+	
+	/**
+	Multiplies each sample by its gain and adds it to the output
+	@param out the array the samples are added to
+	@param offset the index in out of the first sample
+	@param in the samples, starting at index 0
+	@param gains the gain of each sample, starting at index 0
+	@param length the number of samples
+	**/
+	void multiplyAdd(float[] out, int offset, float[] in, float[] gains, int length);
+	
+}
@@ -0,0 +1,72 @@
+package simplesynth;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+Enum that represents the PCM sample formats the synth can output
+and the number of bytes each sample takes up
+**/
+
+public enum SampleFormat {
+	
+	PCM_16 (2), // 16 bit signed integer
+	PCM_24 (3), // 24 bit signed integer
+	PCM_FLOAT_32 (4); // 32 bit float
+	
+	private final int bytesPerSample;
+	
+	/**
+	Constructor for a sample format
+	@param bytesPerSample the number of bytes in each sample
+	**/
+	SampleFormat(int bytesPerSample) {
+		this.bytesPerSample = bytesPerSample;
+	}
+	
+	
+	/**
+	Creates the audio format for a line using this sample format
+	@param sampleRate the sample rate of the audio
+	@param channels the number of channels
+	@param bigEndian true if the bytes of each sample are in big endian order
+	@return the audio format
+	**/
+	public AudioFormat toAudioFormat(float sampleRate, int channels, boolean bigEndian) {
+		
+		AudioFormat.Encoding encoding = (this == PCM_FLOAT_32) 
+				? AudioFormat.Encoding.PCM_FLOAT : AudioFormat.Encoding.PCM_SIGNED;
+		int frameSize = this.bytesPerSample * channels;
+		
+		return new AudioFormat(encoding, sampleRate, this.bytesPerSample * 8, channels,
+				frameSize, sampleRate, bigEndian);
+	}
+	
+	
+	/**
+	Finds the sample format matching an audio format
+	@param af the audio format
+	@return the matching sample format
+	@throws IllegalArgumentException if the audio format is not supported
+	**/
+	public static SampleFormat fromAudioFormat(AudioFormat af) {
+		
+		int bits = af.getSampleSizeInBits();
+		
+		if (AudioFormat.Encoding.PCM_FLOAT.equals(af.getEncoding()) && bits == 32) {
+			return PCM_FLOAT_32;
+		} else if (AudioFormat.Encoding.PCM_SIGNED.equals(af.getEncoding())) {
+			if (bits == 16) return PCM_16;
+			if (bits == 24) return PCM_24;
+		}
+		throw new IllegalArgumentException("Unsupported audio format: " + af);
+	}
+	
+	// Getters
+	
+	/**
+	@return the number of bytes in each sample
+	**/
+	public int getBytesPerSample() {
+		return this.bytesPerSample;
+	}
+}
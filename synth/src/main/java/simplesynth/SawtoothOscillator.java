@@ -1,3 +1,4 @@
+package simplesynth;
 
 /**
 SawtoothOscillator extends on the Oscillator class, 
@@ -43,5 +44,37 @@ public class SawtoothOscillator extends Oscillator{
 				((t / period) - Math.floor((1 / 2) + (t / period))
 				));
 	}
+	
+	
+	/**
+	Renders a block of samples from the sawtooth oscillator into the output array
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param t the time of the first sample (1 sec => t=sampleRate)
+	**/
+	@Override
+	public void render(float[] out, int offset, int length, double t) {
+		double step = this.freq / (double) this.sampleRate; // 1 / period
+		double amp = this.amplitude * 2;
+		
+		for (int i = 0; i < length; i++) {
+			double x = (t + i) * step;
+			out[offset + i] = (float) (amp * (x - Math.floor(x)));
+		}
+	}
+	
+	
+	/**
+	Renders a block of samples from the sawtooth oscillator using the phase accumulator,
+	continuing from where the previous block finished
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	**/
+	@Override
+	public void render(float[] out, int offset, int length) {
+		this.phase = KERNEL.sawtooth(out, offset, length, this.phase, this.phaseIncrement, this.amplitude);
+	}
 	   
 }
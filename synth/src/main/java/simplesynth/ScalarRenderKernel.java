@@ -0,0 +1,59 @@
+package simplesynth;
+
+/**
+ScalarRenderKernel renders one sample at a time, it is used when the Vector API is not available
+**/
+
+class ScalarRenderKernel implements RenderKernel {
+	
+	private static final double ANGLE_CONSTANT = 2.0 * Math.PI;
+	
+	@Override
+	public double sine(float[] out, int offset, int length, double phase, double increment, double amplitude) {
+		double p = phase;
+		
+		for (int i = 0; i < length; i++) {
+			out[offset + i] = (float) (Math.sin(ANGLE_CONSTANT * p) * amplitude);
+			p += increment;
+			if (p >= 1.0) p -= Math.floor(p); // Wrapping the phase at the end of each period, even if it moved more than one
+		}
+		return p;
+	}
+	
+	
+	@Override
+	public double sawtooth(float[] out, int offset, int length, double phase, double increment, double amplitude) {
+		double amp = amplitude * 2;
+		double p = phase;
+		
+		for (int i = 0; i < length; i++) {
+			out[offset + i] = (float) (amp * p);
+			p += increment;
+			if (p >= 1.0) p -= Math.floor(p); // Wrapping the phase at the end of each period, even if it moved more than one
+		}
+		return p;
+	}
+	
+	
+	@Override
+	public double square(float[] out, int offset, int length, double phase, double increment, double amplitude) {
+		float amp = (float) amplitude;
+		double p = phase;
+		
+		for (int i = 0; i < length; i++) {
+			// High for the first half of each period, where the sine wave is positive
+			out[offset + i] = (p > 0 && p < 0.5) ? amp : 0;
+			p += increment;
+			if (p >= 1.0) p -= Math.floor(p); // Wrapping the phase at the end of each period, even if it moved more than one
+		}
+		return p;
+	}
+	
+	
+	@Override
+	public void multiplyAdd(float[] out, int offset, float[] in, float[] gains, int length) {
+		for (int i = 0; i < length; i++) {
+			out[offset + i] += in[i] * gains[i];
+		}
+	}
+}
@@ -1,7 +1,9 @@
+package simplesynth;
+
 import java.awt.BorderLayout;
 import java.awt.Choice;
 import java.awt.Dimension;
-import java.awt.FlowLayout;
+import java.awt.GraphicsEnvironment;
 import java.awt.GridLayout;
 import java.awt.Scrollbar;
 import java.awt.event.AdjustmentEvent;
@@ -10,7 +12,12 @@ import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.io.File;
+import java.io.IOException;
 
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Sequencer;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.LineUnavailableException;
@@ -19,19 +26,18 @@ import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
+/**
+SimpleSynth is the GUI of the synth. It is a thin client of a SynthEngine, its keys start 
+and release notes on the engine and its scroll bars set the engine's envelope and oscillator 
+mix. The engine holds all of the audio state, so it can also be run without the GUI
+**/
+
 public class SimpleSynth {
 
 	// Contants
-	private static final int SAMPLE_RATE = 44100;
-	private static final double DEFAULT_MAX_AMPLITUDE = 50;
 	private static final int DEFAULT_OCTAVE = 0;
 	private static final int OCTAVE_COUNT = 10;
 	
-	// Amplitude constants
-	private static final double DEFAULT_SQUARE_AMPLITUDE = 0;
-	private static final double DEFAULT_SINE_AMPLITUDE = 0;
-	private static final double DEFAULT_SAWTOOTH_AMPLITUDE = 0;
-	
 	private static final String TITLE = "SimpleSynth";
 	
 	// GUI	dimensions 
@@ -55,93 +61,9 @@ public class SimpleSynth {
 	private JPanel oscPanel;
 	private JPanel octavePanel;
 	
-	// Envelope values
-	private double a; // attack time 
-	private double d; // decay time
-	private double s; // sustain amplitude
-	private double r; // release time
-	
-	// Amplitude values
-	private double maxAmplitude; // Current amplitude
-	private double sineAmplitude;
-	private double sawtoothAmplitude;
-	private double squareAmplitude;
-	
 	private int currentOctave;
-	private AdditiveOscillator osc; 
-	
-	private SynthNote currentNote; // Current note playing 
-	private final SourceDataLine line;
-	private final AudioFormat af;
+	private final SynthEngine synth; // Plays every note
 	
-	/**
-	Creates a thread which creates the bytes which need to be written to the 
-	speaker. The bytes are created by specified oscillator, with the specified parameters.
-	The bytes are outputted to the buffer, when the thread is run, and the onFull callback function is
-	called each time the buffer is full. When the note has finished, the remaining 
-	bytes left in the buffer are outputted to the speaker
-	@param freq Is the frequency the oscillator will be at 
-	@return Returns the thread in order to start the note playing
-	**/
-	public SynthNote createSynthNote(double freq) {
-		
-		// Creating synth note with current oscillator, frequency, max amplitude,
-		// attack time, decay time, sustain amplitude, releases time
-		SynthNote note = new SynthNote(this.osc, freq, this.maxAmplitude,
-				this.a, this.d, this.s, this.r, new SynthNote.OnBufferFullListener() {
-
-			@Override
-			public void onFull(byte[] buffer) {
-				
-				// Write the output from the oscillator to the buffer
-				// Written each time the buffer is full
-				line.write(buffer, 0, buffer.length);
-
-			}
-
-			@Override
-			public void onDrain(byte[] buffer) {
-				
-				// Writes the last bytes from the buffer, as
-				// we can't assume the buffer will be full at the end
-				line.write(buffer, 0, buffer.length);
-			}
-			
-		});
-		return note;
-		
-	}
-	
-	/**
-	Starts a SynthNote thread in order to play the note once the user has clicked the 
-	key.
-	@param note The note thread which needs to be run
-	@throws LineUnavailableException
-	**/
-	public void playSynthNote(SynthNote note) throws LineUnavailableException{
-		
-		// If the is currently a note playing, cancel the note to stop it playing
-		if (currentNote != null) currentNote.cancel();
-
-		// Creating reference to new note in case it needs to be cancelled in the future
-    	currentNote = note;
-    	
-    	// Removing the bytes from the previous note from the line
-    	if (line.isOpen()) {
-	    	line.stop();
-	    	line.flush();
-	    	line.close();
-    	}
-    	
-		line.open(af);
-	    line.start();
-	    line.drain();
-	    
-	    // Starting the new note thread
-	    currentNote.start();
-	}
-	
-
 	/**
 	Creates a listener for the key which plays the synth note if the button has been pressed
 	by the user, and releases the synth note if the button has been released by the user.
@@ -152,26 +74,23 @@ public class SimpleSynth {
 	MouseListener createKeyPressListener(final Note note) {
 		
 		MouseListener keyPressListener = new MouseListener() {
+			
+			// The key of the note being played, kept in case the octave
+			// is changed before the button is released
+			private int key;
 
 		    @Override
 		    public void mousePressed(MouseEvent e) {
 		    	// When the user has pressed the button
-		    	// Create the synth note with frequency associated with the button
-		    	// relative to the current octave, and start playing the synth note
-		    	try { playSynthNote(
-		    			createSynthNote(
-		    				note.getFreq(note, currentOctave)	
-		    			)
-		    		);
-		    	} catch (LineUnavailableException error) {
-		    		System.err.println(error);
-		    	}
+		    	// Start playing the note with frequency associated with the button
+		    	// relative to the current octave, with the current envelope
+		    	key = synth.noteOn(note, currentOctave);
 		    }
 
 			@Override
 			public void mouseReleased(MouseEvent e) {
 				// When the user has released the key
-				currentNote.release();
+				synth.noteOff(key);
 			}
 
 			@Override public void mouseClicked(MouseEvent e) {}
@@ -268,24 +187,8 @@ public class SimpleSynth {
 			@Override
 			public void adjustmentValueChanged(AdjustmentEvent e) {
 				// The user has adjusted the value of the scroll bar
-				// Getting the relative value from the scrollbar
-				double newValue = calculateNewParamValue(param, scrollBar.getValue());
-
-				// Deciding which param should be changed 
-				switch(param) {
-				
-				case ATTACK:
-					a = newValue; // Updating attack value
-					break;
-				case DECAY:
-					d = newValue; // Updating decay value
-					break;
-				case SUSTAIN:
- 					s = newValue; // Updating sustain value
-					break;
-				case RELEASE:
-					r = newValue; // Updating release value
-				}
+				// Getting the relative value from the scrollbar, and updating the parameter
+				synth.setParameter(param, calculateNewParamValue(param, scrollBar.getValue()));
 			}
 		};
 		
@@ -323,8 +226,8 @@ public class SimpleSynth {
 			public void adjustmentValueChanged(AdjustmentEvent e) {
 				// When the scroll bar has been adjusted, invert the value and set it as
 				// the new sine amplitude
-				sineAmplitude = SCROLL_BAR_MAX - sineAmp.getValue();
-				osc.setIndivdualAmplitudes(squareAmplitude, sawtoothAmplitude, sineAmplitude);
+				OscillatorMix mix = synth.getOscillatorMix();
+				synth.setIndividualAmplitudes(mix.getSquareAmplitude(), mix.getSawtoothAmplitude(), SCROLL_BAR_MAX - sineAmp.getValue());
 			}
 		});
 		oscPanel.add(sineAmp);
@@ -337,8 +240,8 @@ public class SimpleSynth {
 			public void adjustmentValueChanged(AdjustmentEvent e) {
 				// When the scroll bar has been adjusted, invert the value and set it as
 				// the new sawtooth amplitude
-				sawtoothAmplitude = SCROLL_BAR_MAX - sawAmp.getValue();
-				osc.setIndivdualAmplitudes(squareAmplitude, sawtoothAmplitude, sineAmplitude);
+				OscillatorMix mix = synth.getOscillatorMix();
+				synth.setIndividualAmplitudes(mix.getSquareAmplitude(), SCROLL_BAR_MAX - sawAmp.getValue(), mix.getSineAmplitude());
 			}
 		});
 		oscPanel.add(sawAmp);
@@ -351,8 +254,8 @@ public class SimpleSynth {
 			public void adjustmentValueChanged(AdjustmentEvent e) {
 				// When the scroll bar has been adjusted, invert the value and set it as
 				// the new square amplitude
-				squareAmplitude = SCROLL_BAR_MAX - squareAmp.getValue();
-				osc.setIndivdualAmplitudes(squareAmplitude, sawtoothAmplitude, sineAmplitude);
+				OscillatorMix mix = synth.getOscillatorMix();
+				synth.setIndividualAmplitudes(SCROLL_BAR_MAX - squareAmp.getValue(), mix.getSawtoothAmplitude(), mix.getSineAmplitude());
 			}
 		});
 		oscPanel.add(squareAmp);
@@ -430,30 +333,41 @@ public class SimpleSynth {
 	
 	
 	/**
-	Constructor which initialises instance variables and creates GUI
+	Constructor which initialises instance variables, opens the output
+	and creates GUI, using the balanced latency profile
 	@param line output line
-	@param af audio format
+	@param af audio format, at the sample rate of the balanced profile
+	@throws LineUnavailableException
 	**/
-	public SimpleSynth(final SourceDataLine line, final AudioFormat af){
+	public SimpleSynth(final SourceDataLine line, final AudioFormat af) throws LineUnavailableException {
+		this(line, af, LatencyProfile.BALANCED);
+	}
 	
-		this.line = line;
-		this.af = af;
-		this.currentNote = null;
-		
-		// Creating adsr envelopes
-		this.a = calculateNewParamValue(EnvelopeParameter.ATTACK, SCROLL_BAR_MAX - 1);
-		this.d = calculateNewParamValue(EnvelopeParameter.DECAY, SCROLL_BAR_MAX - 1);
-		this.s = calculateNewParamValue(EnvelopeParameter.SUSTAIN, SCROLL_BAR_MAX - 1);
-		this.r = calculateNewParamValue(EnvelopeParameter.RELEASE, SCROLL_BAR_MAX - 1);
+	
+	/**
+	Constructor which initialises instance variables, opens the output
+	and creates GUI
+	@param line output line
+	@param af audio format, at the sample rate of the profile
+	@param profile sets the block size, line buffer size, sample rate and control rate
+	@throws LineUnavailableException
+	**/
+	public SimpleSynth(final SourceDataLine line, final AudioFormat af, 
+			final LatencyProfile profile) throws LineUnavailableException {
+		this(openEngine(line, af, profile));
+	}
+	
+	
+	/**
+	Constructor which creates the GUI for an engine. The engine is
+	used as it is, the GUI only changes it when a control is used
+	@param synth the engine the GUI plays
+	**/
+	public SimpleSynth(final SynthEngine synth) {
 		
-		this.maxAmplitude = DEFAULT_MAX_AMPLITUDE;
+		this.synth = synth;
 		this.currentOctave = DEFAULT_OCTAVE;
 		
-		// Setting up oscillator
-		this.osc = new AdditiveOscillator(SAMPLE_RATE);
-		this.osc.setIndivdualAmplitudes(DEFAULT_SQUARE_AMPLITUDE,
-				DEFAULT_SAWTOOTH_AMPLITUDE, DEFAULT_SINE_AMPLITUDE);
-		
 		// Creating GUI elements
 		createGUI();
 		createKeys();
@@ -462,16 +376,78 @@ public class SimpleSynth {
 		createOctaveChoice();
 	}
 	
+	
+	/**
+	Creates an engine with the envelope the GUI starts with, opens the output
+	and connects the MIDI keyboard if there is one
+	@param line output line
+	@param af audio format, at the sample rate of the profile
+	@param profile sets the block size, line buffer size, sample rate and control rate
+	@return the engine
+	@throws LineUnavailableException
+	**/
+	private static SynthEngine openEngine(SourceDataLine line, AudioFormat af, 
+			LatencyProfile profile) throws LineUnavailableException {
+		
+		SynthEngine synth = new SynthEngine(profile);
+		
+		// Creating adsr envelopes
+		for (EnvelopeParameter param : EnvelopeParameter.values()) {
+			synth.setParameter(param, calculateNewParamValue(param, SCROLL_BAR_MAX - 1));
+		}
+		
+		// The line is opened once and kept open, notes are 
+		// started and stopped on the engine
+		synth.open(line, af);
+		
+		// MIDI notes are timed by their timestamps, rather than going through the GUI
+		synth.connectMidiKeyboard();
+		return synth;
+	}
+	
 
+	/**
+	Plays a MIDI file on the synth
+	@param file the MIDI file
+	@return the sequencer playing the file
+	@throws MidiUnavailableException if there is no sequencer
+	@throws InvalidMidiDataException if the file is not a MIDI file
+	@throws IOException if the file cannot be read
+	**/
+	public Sequencer playMidiFile(File file) throws MidiUnavailableException, InvalidMidiDataException, IOException {
+		return this.synth.playMidiFile(file);
+	}
+	
+
+	/**
+	Starts the synth, playing the MIDI file given as the first argument if there is one.
+	Without a display the synth runs without the GUI, plays the file and then exits
+	@param args the path of a MIDI file, optional
+	**/
 	public static void main(String[] args) {
 
 		try {
-			AudioFormat af = new AudioFormat(SAMPLE_RATE, 16, 1, true, true);
+			LatencyProfile profile = LatencyProfile.fromProperty();
+			AudioFormat af = profile.toAudioFormat(SampleFormat.PCM_16);
 			final SourceDataLine line = AudioSystem.getSourceDataLine(af);
-	
-			SimpleSynth synth = new SimpleSynth(line, af);	
 			
-		} catch (LineUnavailableException e) {
+			SynthEngine synth = openEngine(line, af, profile);
+			Sequencer sequencer = (args.length > 0) ? synth.playMidiFile(new File(args[0])) : null;
+			
+			if (!GraphicsEnvironment.isHeadless()) {
+				new SimpleSynth(synth);
+			} else if (sequencer != null) {
+				// Waiting for the file to finish, as there is no window to close
+				while (sequencer.isRunning()) Thread.sleep(100);
+				sequencer.close();
+				synth.close();
+			} else {
+				System.err.println("No display, give a MIDI file to play without the GUI");
+				synth.close();
+			}
+			
+		} catch (LineUnavailableException | MidiUnavailableException 
+				| InvalidMidiDataException | IOException | InterruptedException e) {
 			e.printStackTrace();
 		}
 
@@ -0,0 +1,77 @@
+package simplesynth;
+
+/**
+SquareOscillator extends on the Oscillator class, 
+It acts as a square wave oscillator
+**/
+
+public class SquareOscillator extends Oscillator{
+
+	// Constructors
+	
+	/**
+	Constructor for SquareOscillator by default sets freq to middle c, and amplitude to 100
+	@param sampleRate sets the sample rate of the oscillator
+	**/
+	public SquareOscillator(int sampleRate) {
+		super(sampleRate);
+	}
+	
+	
+	/**
+	Constructor for SquareOscillator
+	@param sampleRate sets the sample rate of the oscillator
+	@param freq sets the frequency of the oscillator
+	@param amplitude sets the amplitude of the oscillator
+	**/
+	public SquareOscillator(int sampleRate, double freq, double amplitude) {
+		super(sampleRate, freq, amplitude);
+	}
+
+	
+	/**
+	Creates the frequency as a byte where at time t
+	@param t is the time at which the wave is at (1 sec => t=sampleRate)
+	@return The byte created by the square wave oscillator at time t
+	**/
+	@Override
+	public byte createWave(double t) {
+	   	// If sine wave at t is negative, return 0, otherwave return the amplitude
+		return (byte) ((super.sineWave(t, DEFAULT_SINE_CONSTANT) <= 0)
+							? 0 : this.amplitude);   
+	}
+	
+	
+	/**
+	Renders a block of samples from the square wave oscillator into the output array
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param t the time of the first sample (1 sec => t=sampleRate)
+	**/
+	@Override
+	public void render(float[] out, int offset, int length, double t) {
+		double step = this.freq / (double) this.sampleRate; // 1 / period
+		float amp = (float) this.amplitude;
+		
+		for (int i = 0; i < length; i++) {
+			double x = (t + i) * step;
+			double position = x - Math.floor(x); // Position within the period (0 to 1)
+			// High for the first half of each period, where the sine wave is positive
+			out[offset + i] = (position > 0 && position < 0.5) ? amp : 0;
+		}
+	}
+	
+	
+	/**
+	Renders a block of samples from the square wave oscillator using the phase accumulator,
+	continuing from where the previous block finished
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	**/
+	@Override
+	public void render(float[] out, int offset, int length) {
+		this.phase = KERNEL.square(out, offset, length, this.phase, this.phaseIncrement, this.amplitude);
+	}
+}
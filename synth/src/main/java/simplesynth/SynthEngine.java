@@ -0,0 +1,356 @@
+package simplesynth;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Sequencer;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+SynthEngine is the synth without a GUI. It holds the voices, the oscillator mix and the
+envelope and max amplitude given to new notes, and feeds an output line once one is opened,
+or streams to any PcmSink, such as a file or a socket, when it is rendered by the client.
+Nothing in it touches AWT or Swing, so it can run on a headless server, be benchmarked
+without a display, and several can be created in one JVM, each with its own voices and line.
+The SimpleSynth GUI is one client of it, setting the values from its controls and playing
+notes from its keys. The settings can be changed from any thread, and are used by the
+notes started after the change
+**/
+
+public class SynthEngine {
+
+	// Constants
+	public static final int DEFAULT_VOICE_COUNT = 8; // Number of notes that can be played at once
+	public static final VoiceStealingPolicy DEFAULT_STEALING_POLICY = VoiceStealingPolicy.OLDEST;
+	public static final double DEFAULT_MAX_AMPLITUDE = 50;
+
+	// Envelope constants
+	private static final double DEFAULT_ATTACK = 0.01;
+	private static final double DEFAULT_DECAY = 0.1;
+	private static final double DEFAULT_SUSTAIN = 70;
+	private static final double DEFAULT_RELEASE = 0.3;
+
+	private final LatencyProfile profile;
+	private final VoiceEngine engine; // Plays every note
+	private AudioOutput output; // Feeds the engine to the line, null until a line is opened
+	private MidiInput midiInput; // Plays MIDI notes on the engine, null until MIDI is used
+	private final float[] block; // Rendered into when streaming to a sink
+	private final FloatBuffer blockBuffer; // Wraps the block, to hand it to the sink
+
+	// Envelope values of the following notes
+	private volatile double a; // attack time
+	private volatile double d; // decay time
+	private volatile double s; // sustain amplitude
+	private volatile double r; // release time
+
+	private volatile double maxAmplitude;
+	private volatile OscillatorMix mix;
+
+
+	/**
+	Constructor for the engine, with the default number of voices and stealing policy
+	@param profile sets the block size, line buffer size, sample rate and control rate
+	**/
+	public SynthEngine(LatencyProfile profile) {
+		this(DEFAULT_VOICE_COUNT, DEFAULT_STEALING_POLICY, profile);
+	}
+
+
+	/**
+	Constructor for the engine. Every oscillator starts silent
+	@param voiceCount the number of notes that can be played at once
+	@param stealingPolicy how a voice is chosen when every voice is playing
+	@param profile sets the block size, line buffer size, sample rate and control rate
+	**/
+	public SynthEngine(int voiceCount, VoiceStealingPolicy stealingPolicy, LatencyProfile profile) {
+
+		this.profile = profile;
+		this.engine = new VoiceEngine(voiceCount, stealingPolicy, profile);
+		this.block = new float[profile.getBlockSize()];
+		this.blockBuffer = FloatBuffer.wrap(this.block);
+
+		this.a = DEFAULT_ATTACK;
+		this.d = DEFAULT_DECAY;
+		this.s = DEFAULT_SUSTAIN;
+		this.r = DEFAULT_RELEASE;
+		this.maxAmplitude = DEFAULT_MAX_AMPLITUDE;
+		setIndividualAmplitudes(0, 0, 0);
+	}
+
+
+	/**
+	Opens the line and starts feeding the engine to it. The line is kept open until the
+	engine is closed, notes are started and stopped on the engine
+	@param line output line
+	@param af audio format, at the sample rate of the profile
+	@throws LineUnavailableException
+	@throws IllegalStateException if a line has already been opened
+	**/
+	public synchronized void open(SourceDataLine line, AudioFormat af) throws LineUnavailableException {
+
+		if (this.output != null) throw new IllegalStateException("The engine already has an output");
+		if (af.getSampleRate() != this.profile.getSampleRate()) {
+			throw new IllegalArgumentException("Audio format sample rate " + af.getSampleRate()
+					+ " does not match the " + this.profile + " profile's " + this.profile.getSampleRate());
+		}
+
+		AudioOutput output = new AudioOutput(this.engine, line, af, this.profile);
+		output.open();
+		this.output = output;
+	}
+
+
+	/**
+	Renders the engine into an array, for clients which output the samples themselves.
+	Must not be used once a line has been opened, as the line's thread renders the engine
+	@param out the array the mixed samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@return the number of samples rendered
+	**/
+	public int render(float[] out, int offset, int length) {
+		return this.engine.render(out, offset, length);
+	}
+
+
+	/**
+	Renders the engine straight into a sink, a block of the profile at a time, for clients 
+	streaming to a file or another process. The sink is flushed but not closed.
+	Must not be used once a line has been opened, as the line's thread renders the engine,
+	or from two threads at once, as every call renders into the same block
+	@param sink the sink written to, at the profile's sample rate
+	@param frames the number of samples to render
+	@throws IOException
+	**/
+	public void render(PcmSink sink, long frames) throws IOException {
+		
+		if (sink.getFormat().getSampleRate() != this.profile.getSampleRate()) {
+			throw new IllegalArgumentException("Sink sample rate " + sink.getFormat().getSampleRate() 
+					+ " does not match the " + this.profile + " profile's " + this.profile.getSampleRate());
+		}
+		
+		for (long done = 0; done < frames; done += this.block.length) {
+			int length = (int) Math.min(this.block.length, frames - done);
+			this.engine.render(this.block, 0, length);
+			this.blockBuffer.clear().limit(length);
+			sink.write(this.blockBuffer);
+		}
+		sink.flush();
+	}
+	
+	
+	/**
+	Starts playing a note with the current envelope, max amplitude and tuning
+	@param note the musical note
+	@param octave the octave of the note
+	@return the key of the note, used to release it
+	**/
+	public int noteOn(Note note, int octave) {
+		int key = note.getKey(octave);
+		this.engine.keyOn(key, this.maxAmplitude, this.a, this.d, this.s, this.r);
+		return key;
+	}
+
+
+	/**
+	Releases a note started by noteOn
+	@param key the key returned by noteOn
+	**/
+	public void noteOff(int key) {
+		this.engine.noteOff(key);
+	}
+
+
+	/**
+	Connects the system's MIDI keyboard, if there is one, to the engine
+	@return true if a keyboard was connected
+	**/
+	public boolean connectMidiKeyboard() {
+		try {
+			MidiSystem.getTransmitter().setReceiver(getMidiInput());
+			return true;
+		} catch (MidiUnavailableException e) {
+			return false; // No keyboard
+		}
+	}
+
+
+	/**
+	Plays a MIDI file on the engine
+	@param file the MIDI file
+	@return the sequencer playing the file, which can be stopped and closed
+	@throws MidiUnavailableException if there is no sequencer
+	@throws InvalidMidiDataException if the file is not a MIDI file
+	@throws IOException if the file cannot be read
+	**/
+	public Sequencer playMidiFile(File file) throws MidiUnavailableException, InvalidMidiDataException, IOException {
+		return getMidiInput().play(file);
+	}
+
+
+	/**
+	Creates the MIDI input the first time it is used. MIDI notes are timed by their
+	timestamps, and start with the engine's envelope and max amplitude, which are passed
+	on to the input whenever they are set. MIDI controllers only change the input's envelope
+	@return the MIDI input
+	**/
+	private synchronized MidiInput getMidiInput() {
+		if (this.midiInput == null) {
+			this.midiInput = new MidiInput(this.engine, this.profile, this.maxAmplitude,
+					this.a, this.d, this.s, this.r);
+		}
+		return this.midiInput;
+	}
+
+
+	/**
+	Releases every MIDI note, stops feeding the line and closes it once it has played
+	what it holds, then stops the engine. The engine must not be used afterwards
+	@throws InterruptedException if interrupted while waiting for the line to finish
+	**/
+	public synchronized void close() throws InterruptedException {
+
+		if (this.midiInput != null) this.midiInput.close();
+		if (this.output != null) {
+			this.output.close();
+			this.output.join();
+		}
+		this.engine.close();
+	}
+
+
+	// Setters
+
+	/**
+	Sets an envelope value used by the following notes, including MIDI notes
+	@param param the envelope parameter
+	@param value the new value, within the parameter's range
+	@throws IllegalArgumentException if the value is outside of the parameter's range
+	**/
+	public void setParameter(EnvelopeParameter param, double value) {
+
+		param.check(value);
+		switch (param) {
+		case ATTACK:
+			this.a = value;
+			break;
+		case DECAY:
+			this.d = value;
+			break;
+		case SUSTAIN:
+			this.s = value;
+			break;
+		case RELEASE:
+			this.r = value;
+		}
+
+		synchronized (this) {
+			if (this.midiInput != null) this.midiInput.setParameter(param, value);
+		}
+	}
+
+
+	/**
+	Sets the amplitude at the end of the attack envelope of the following notes, including MIDI notes
+	@param maxAmplitude the max amplitude
+	**/
+	public void setMaxAmplitude(double maxAmplitude) {
+		this.maxAmplitude = maxAmplitude;
+
+		synchronized (this) {
+			if (this.midiInput != null) this.midiInput.setMaxAmplitude(maxAmplitude);
+		}
+	}
+
+
+	/**
+	Sets the amplitude of each individual oscillator on every voice,
+	from the beginning of the next block
+	@param sqAmp the amplitude of the square wave oscillator
+	@param stAmp the amplitude of the sawtooth wave oscillator
+	@param siAmp the amplitude of the sine wave oscillator
+	**/
+	public void setIndividualAmplitudes(double sqAmp, double stAmp, double siAmp) {
+		this.mix = new OscillatorMix(sqAmp, stAmp, siAmp);
+		this.engine.setIndividualAmplitudes(sqAmp, stAmp, siAmp);
+	}
+
+
+	/**
+	Retunes the engine from the beginning of the next block, for the notes started after
+	the change, including MIDI notes
+	@param tuning the pitch of each key, moved to the engine's sample rate if it is for another
+	**/
+	public void setTuning(TuningTable tuning) {
+		this.engine.setTuning(tuning.withSampleRate(this.profile.getSampleRate()));
+	}
+
+
+	// Getters
+
+	/**
+	@param param the envelope parameter
+	@return the value the following notes use
+	**/
+	public double getParameter(EnvelopeParameter param) {
+
+		switch (param) {
+		case ATTACK:
+			return this.a;
+		case DECAY:
+			return this.d;
+		case SUSTAIN:
+			return this.s;
+		default:
+			return this.r;
+		}
+	}
+
+	/**
+	@return the amplitude at the end of the attack envelope of the following notes
+	**/
+	public double getMaxAmplitude() {
+		return this.maxAmplitude;
+	}
+
+	/**
+	@return the pitch of each key
+	**/
+	public TuningTable getTuning() {
+		return this.engine.getTuning();
+	}
+
+	/**
+	@return the amplitude of each individual oscillator
+	**/
+	public OscillatorMix getOscillatorMix() {
+		return this.mix;
+	}
+
+	/**
+	@return the latency profile the engine renders with
+	**/
+	public LatencyProfile getProfile() {
+		return this.profile;
+	}
+
+	/**
+	@return the engine's voices, for scheduling notes on exact frames
+	**/
+	public VoiceEngine getVoiceEngine() {
+		return this.engine;
+	}
+
+	/**
+	@return how close the line has come to running dry, or null if no line is open
+	**/
+	public synchronized AudioOutputStats getOutputStats() {
+		return (this.output != null) ? this.output.getStats() : null;
+	}
+}
@@ -0,0 +1,356 @@
+package simplesynth;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+SynthNote creates a thread in which a single Voice plays the note on the oscillator
+selected. The thread renders the voice in float blocks, which are converted to PCM
+bytes as they are written to a buffer. When the buffer is full, the listener's
+callback function is used, where the bytes then can be written to the line out.
+When the SynthNote has completed, the remaining bytes in the buffer are drained.
+Given a PcmSink rather than a listener, each block is converted straight into the
+sink, and the sink is flushed at the end. If the sink fails the note stops, and
+the failure can be read once the thread has finished.
+The SynthNote can also be cancelled. A release or cancel can be given the frame
+it happens on, counted in samples since the note started, and the block is split
+at that frame, so the note ends the same way however the threads are scheduled.
+To play several notes at once use the VoiceEngine, which mixes many voices on one thread.
+**/
+
+public class SynthNote extends Thread {
+		
+	private Buffer buffer; // null when writing to a sink
+	private PcmSink sink; // null when passing bytes to a listener
+	private Voice voice;
+	
+	// The buffer holds a profile block, and the voice renders a control block at a time
+	private static final LatencyProfile DEFAULT_PROFILE = LatencyProfile.BALANCED;
+	
+	private float[] block; // Samples rendered by the voice for the current block
+	private FloatBuffer blockBuffer; // Wraps the block, to hand it to the sink
+	private int blockSize; // Samples rendered at a time
+	
+	// The note the voice will play
+	private double frequency;
+	private double maxAmplitude;
+	private double a, d, s, r;
+	
+	// Releases and cancels from other threads, applied to the voice on their frame
+	private final EventQueue events;
+	private volatile long framePosition; // The frame at the start of the next block
+	private volatile IOException failure; // Thrown by the sink, null if it has not failed
+	
+	public SynthNote(
+			Oscillator osc,
+			double freq, double maxAmplitude,
+			double a, double d, double s, double r,
+			OnBufferFullListener listener) {
+		this(osc, DEFAULT_PROFILE.getSampleRate(), freq, maxAmplitude, a, d, s, r, listener);
+	}
+	
+	public SynthNote(
+			Oscillator osc,
+			int sampleRate, double freq, double maxAmplitude,
+			double a, double d, double s, double r,
+			OnBufferFullListener listener) {
+		// By default the bytes are 16 bit signed big endian PCM
+		this(osc, sampleRate, freq, maxAmplitude, a, d, s, r, 
+				new PcmConverter(SampleFormat.PCM_16, true, true), listener);
+	}
+	
+	public SynthNote(
+			Oscillator osc,
+			int sampleRate, double freq, double maxAmplitude,
+			double a, double d, double s, double r,
+			PcmConverter converter, OnBufferFullListener listener) {
+		this(osc, DEFAULT_PROFILE, sampleRate, freq, maxAmplitude, a, d, s, r, converter, listener);
+	}
+	
+	/**
+	Constructor for a note using the block sizes and sample rate of a latency profile
+	@param osc the oscillator the note is played on, created with the profile's sample rate
+	@param profile sets the buffer size, the block size and the sample rate
+	**/
+	public SynthNote(
+			Oscillator osc,
+			LatencyProfile profile, double freq, double maxAmplitude,
+			double a, double d, double s, double r,
+			PcmConverter converter, OnBufferFullListener listener) {
+		this(osc, profile, profile.getSampleRate(), freq, maxAmplitude, a, d, s, r, converter, listener);
+	}
+	
+	
+	/**
+	Constructor for a note written straight into a sink, using the block size and sample rate 
+	of a latency profile. The sink is not closed when the note ends
+	@param osc the oscillator the note is played on, created with the profile's sample rate
+	@param profile sets the block size and the sample rate
+	@param sink the sink the note is written to, at the profile's sample rate
+	**/
+	public SynthNote(
+			Oscillator osc,
+			LatencyProfile profile, double freq, double maxAmplitude,
+			double a, double d, double s, double r,
+			PcmSink sink) {
+		this(osc, profile, profile.getSampleRate(), freq, maxAmplitude, a, d, s, r, null, null);
+		
+		if (sink.getFormat().getSampleRate() != profile.getSampleRate()) {
+			throw new IllegalArgumentException("Sink sample rate " + sink.getFormat().getSampleRate() 
+					+ " does not match the " + profile + " profile's " + profile.getSampleRate());
+		}
+		this.sink = sink;
+	}
+	
+	private SynthNote(
+			Oscillator osc,
+			LatencyProfile profile, int sampleRate, double freq, double maxAmplitude,
+			double a, double d, double s, double r,
+			PcmConverter converter, OnBufferFullListener listener) {
+		
+		// Initallising the buffer, notes written to a sink do not need one
+		if (listener != null) this.buffer = new Buffer(profile.getBlockSize(), converter, listener);
+		this.blockSize = profile.getControlRate();
+		this.voice = new Voice(osc, sampleRate, this.blockSize);
+		this.block = new float[this.blockSize];
+		this.blockBuffer = FloatBuffer.wrap(this.block);
+		
+		this.frequency = freq;
+		this.maxAmplitude = maxAmplitude;
+		this.a = a;
+		this.d = d;
+		this.s = s;
+		this.r = r;
+		
+		this.events = new EventQueue();
+	}
+	
+
+	public void run() {
+		 
+		this.voice.noteOn(0, this.frequency, this.maxAmplitude, this.a, this.d, this.s, this.r);
+		
+		// Render blocks until the release envelope has finished
+		// or the note has been cancelled
+		while (this.voice.isActive()) {
+			
+			long blockStart = this.framePosition;
+			Arrays.fill(this.block, 0);
+			
+			// Applying releases and cancels due, then rendering up to the next one's frame
+			int done = 0;
+			while (done < this.blockSize && this.voice.isActive()) {
+				int count = this.events.apply(blockStart + done, this.blockSize - done);
+				done += this.voice.mix(this.block, done, count);
+			}
+			this.framePosition = blockStart + done;
+			
+			if (this.sink != null) {
+				if (!writeToSink(done)) return;
+			} else {
+				this.buffer.add(this.block, done); // Add the rendered block to the buffer
+			}
+		}
+		
+		if (this.sink != null) {
+			flushSink();
+		} else {
+			this.buffer.drain(); // Output any remaining bytes in the buffer
+		}
+	}
+	
+	
+	/**
+	Writes the rendered part of the block to the sink. If the sink fails the note is stopped
+	@param length the number of samples rendered
+	@return false if the sink failed
+	**/
+	private boolean writeToSink(int length) {
+		try {
+			this.blockBuffer.clear().limit(length);
+			this.sink.write(this.blockBuffer);
+			return true;
+		} catch (IOException e) {
+			this.failure = e;
+			return false;
+		}
+	}
+	
+	
+	/**
+	Passes on any samples the sink is holding, once the note has finished
+	**/
+	private void flushSink() {
+		try {
+			this.sink.flush();
+		} catch (IOException e) {
+			this.failure = e;
+		}
+	}
+	
+	
+	// Public methods
+	
+	/**
+	Notifies the SynthNote thread that the key has been released
+	by the user, the release starts at the beginning of the next block
+	**/
+	public void release() {
+		release(EventQueue.IMMEDIATE);
+	}
+	
+	
+	/**
+	Releases the note on the frame given, or at the start of the next block if that frame has passed
+	@param frame the frame the release starts on, counted in samples since the note started
+	**/
+	public void release(long frame) {
+		this.events.add(new EventQueue.Event(frame) {
+			@Override
+			void apply() {
+				voice.release();
+			}
+		});
+	}
+		
+	
+	/**
+	Notifies the SynthNote thread that the note has been cancelled
+	by the user as they have pressed another key, the note stops at 
+	the beginning of the next block
+	**/
+	public void cancel() {
+		cancel(EventQueue.IMMEDIATE);
+	}
+	
+	
+	/**
+	Cancels the note on the frame given, or at the start of the next block if that frame has passed
+	@param frame the frame the note stops on, counted in samples since the note started
+	**/
+	public void cancel(long frame) {
+		this.events.add(new EventQueue.Event(frame) {
+			@Override
+			void apply() {
+				voice.cancel();
+			}
+		});
+	}
+	
+	
+	/**
+	@return the frame at the start of the next block to be rendered,
+	counted in samples since the note started
+	**/
+	public long getFramePosition() {
+		return this.framePosition;
+	}
+	
+	
+	/**
+	@return the exception which stopped the note writing to its sink,
+	or null if the sink has not failed
+	**/
+	public IOException getFailure() {
+		return this.failure;
+	}
+	
+
+	/**
+	A simple private buffer class used to output bytes to the line.
+	Samples are converted to PCM bytes as they are added.
+	The buffer swaps between two byte arrays which are created once, so filling
+	the buffer never allocates. While one array is with the listener, the 
+	other is being filled.
+	**/
+	private class Buffer {
+		
+		int size; // Max number of samples in the buffer
+		int itemCount; // Current number of samples in the buffer
+		int bytesPerSample;
+		byte[] buffer; // Buffer byte array currently being filled
+		byte[] spare; // Buffer byte array last passed to the listener
+		PcmConverter converter;
+		OnBufferFullListener listener;
+		
+		/**
+		Constructor for the byte buffer
+		@param size Max number of samples in the buffer
+		@param converter Converts the samples to bytes
+		@param listener 
+		**/
+		Buffer(int size, PcmConverter converter, OnBufferFullListener listener) {
+			this.itemCount = 0;
+			this.size = size;
+			this.converter = converter;
+			this.listener = listener;
+			this.bytesPerSample = converter.getFormat().getBytesPerSample();
+			// Initiallising buffer arrays
+			this.buffer = new byte[size * bytesPerSample];
+			this.spare = new byte[size * bytesPerSample];
+		}
+		
+		/**
+		Used to add samples to the buffer, if buffer is full, then the callback
+		function is called and the buffer is reset.
+		@param samples the samples to add to the buffer
+		@param length the number of samples to add
+		**/
+		void add(float[] samples, int length) {
+			
+			int offset = 0;
+			while (offset < length) {
+				// If the buffer is full
+				if (this.itemCount == this.size) {
+					// Passing array of bytes to the callback function
+					this.listener.onFull(this.buffer, 0, this.buffer.length);
+					this.reset(); // Swap to the other array
+				}
+				
+				// Converting as many samples as there is room for
+				int count = Math.min(length - offset, this.size - this.itemCount);
+				this.converter.convert(samples, offset, count, this.buffer, this.itemCount * this.bytesPerSample);
+				this.itemCount += count;
+				offset += count;
+			}
+		}
+		
+		/**
+		Resets the buffer by swapping to the other array, the array just 
+		passed to the listener is left untouched until the next callback
+		**/
+		void reset() {
+			byte[] full = this.buffer;
+			this.buffer = this.spare;
+			this.spare = full;
+			this.itemCount = 0;
+		}
+		
+		/**
+		Used to drain the remaining bytes from the buffer, as
+		the buffer is not always going to be completely full when the note
+		ends, so the onFull callback will not be called and the buffer
+		will be partially full. Only the bytes of the samples in the
+		buffer are passed on, the rest of the array is not written
+		**/
+		void drain() {
+			this.listener.onDrain(this.buffer, 0, this.itemCount * this.bytesPerSample);
+			this.reset();
+		}
+				
+	}
+	
+	/* OnBufferFullListener used for callback functions.
+	Only the bytes from offset to offset + length are valid, the rest of the array
+	must not be written to the line. The arrays passed to the callbacks belong to 
+	the SynthNote and are reused. An array is not written to again until the next 
+	callback has returned, so the listener may keep it until then, but must copy 
+	anything it needs for longer */
+	public interface OnBufferFullListener {
+		void onFull(byte[] buffer, int offset, int length); // Called when the buffer is full
+		void onDrain(byte[] buffer, int offset, int length); // Called when the buffer is partially full
+		// and needs to be emptied and written to line, length may be 0
+	}
+	
+}
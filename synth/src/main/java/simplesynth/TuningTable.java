@@ -0,0 +1,327 @@
+package simplesynth;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+TuningTable holds the frequency of every MIDI key, and the phase increment an oscillator
+at the table's sample rate moves by each sample to play it, worked out once when the table
+is made so starting a note is a lookup rather than a power of two. Tables are built from
+equal temperament with any pitch for A4, from a scale of cents or ratios such as a Scala
+(.scl) file, or from any frequency for each key, for microtuning.
+It is immutable, so an engine is retuned by handing it a new table.
+Keys outside the MIDI range, such as the top of the GUI's highest octave, are played an
+octave above or below a key inside it. Keys above the Nyquist frequency (half the sample
+rate) cannot be played, so their phase increment is held at the Nyquist frequency
+**/
+
+public final class TuningTable {
+
+	// Constants
+	public static final int KEY_COUNT = 128; // Keys 0 to 127
+	public static final int A4_KEY = 69;
+	public static final double A4_FREQ = 440.0;
+	private static final int OCTAVE_KEYS = 12;
+	private static final double OCTAVE_CENTS = 1200.0;
+	private static final double MAX_PHASE_INCREMENT = 0.5; // The Nyquist frequency, half the sample rate
+
+	// Equal temperament with A4 at 440 Hz, for anything that only needs frequencies
+	private static final double[] STANDARD_FREQUENCIES = equalTemperamentFrequencies(A4_FREQ);
+
+	private final String description;
+	private final int sampleRate;
+	private final double[] frequencies;
+	private final double[] phaseIncrements; // frequencies / sampleRate, at most the Nyquist frequency
+
+
+	/**
+	Constructor for a table
+	@param description the name of the tuning
+	@param frequencies the frequency of each key, which is kept by the table
+	@param sampleRate the sample rate of the oscillators the table is used by
+	**/
+	private TuningTable(String description, double[] frequencies, int sampleRate) {
+
+		if (sampleRate < 1) throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+
+		this.description = description;
+		this.sampleRate = sampleRate;
+		this.frequencies = frequencies;
+		this.phaseIncrements = new double[KEY_COUNT];
+		for (int key = 0; key < KEY_COUNT; key++) {
+			this.phaseIncrements[key] = Math.min(frequencies[key] / (double) sampleRate, MAX_PHASE_INCREMENT);
+		}
+	}
+
+
+	/**
+	Creates a table of twelve tone equal temperament with A4 at 440 Hz
+	@param sampleRate the sample rate of the oscillators the table is used by
+	@return the table
+	**/
+	public static TuningTable equalTemperament(int sampleRate) {
+		return equalTemperament(sampleRate, A4_FREQ);
+	}
+
+
+	/**
+	Creates a table of twelve tone equal temperament
+	@param sampleRate the sample rate of the oscillators the table is used by
+	@param a4Freq the frequency of A4, such as 440 or 432
+	@return the table
+	**/
+	public static TuningTable equalTemperament(int sampleRate, double a4Freq) {
+		checkFrequency(a4Freq);
+		return new TuningTable("12-TET, A4 = " + a4Freq + " Hz", equalTemperamentFrequencies(a4Freq), sampleRate);
+	}
+
+
+	/**
+	Creates a table from a scale, repeated every period, with the reference key on the
+	scale's first degree
+	@param description the name of the tuning
+	@param degreeCents the cents of each degree above the first, the last being the period,
+	so twelve tone equal temperament is 100, 200 ... 1200
+	@param sampleRate the sample rate of the oscillators the table is used by
+	@param referenceKey the MIDI key playing the reference frequency
+	@param referenceFreq the frequency of the reference key
+	@return the table
+	**/
+	public static TuningTable fromScale(String description, double[] degreeCents, int sampleRate,
+			int referenceKey, double referenceFreq) {
+
+		if (degreeCents.length == 0) throw new IllegalArgumentException("A scale needs at least one degree");
+		double periodCents = degreeCents[degreeCents.length - 1];
+		if (!(periodCents > 0)) throw new IllegalArgumentException("Scale period must be positive: " + periodCents);
+		checkKey(referenceKey);
+		checkFrequency(referenceFreq);
+
+		double[] frequencies = new double[KEY_COUNT];
+		for (int key = 0; key < KEY_COUNT; key++) {
+			int steps = key - referenceKey;
+			int period = Math.floorDiv(steps, degreeCents.length);
+			int degree = Math.floorMod(steps, degreeCents.length);
+			double cents = period * periodCents + ((degree == 0) ? 0 : degreeCents[degree - 1]);
+			frequencies[key] = referenceFreq * Math.pow(2, cents / OCTAVE_CENTS);
+		}
+		return new TuningTable(description, frequencies, sampleRate);
+	}
+
+
+	/**
+	Creates a table from the frequency of every key
+	@param description the name of the tuning
+	@param frequencies the frequency of each of the 128 MIDI keys
+	@param sampleRate the sample rate of the oscillators the table is used by
+	@return the table
+	**/
+	public static TuningTable fromFrequencies(String description, double[] frequencies, int sampleRate) {
+
+		if (frequencies.length != KEY_COUNT) {
+			throw new IllegalArgumentException("Expected " + KEY_COUNT + " frequencies, not " + frequencies.length);
+		}
+		for (double freq : frequencies) {
+			checkFrequency(freq);
+		}
+		return new TuningTable(description, frequencies.clone(), sampleRate);
+	}
+
+
+	/**
+	Creates a table from a Scala scale file, with the reference key on the scale's first degree
+	@param file the .scl file
+	@param sampleRate the sample rate of the oscillators the table is used by
+	@param referenceKey the MIDI key playing the reference frequency, such as 60 for middle C
+	@param referenceFreq the frequency of the reference key
+	@return the table
+	@throws IOException if the file could not be read or is not a Scala scale
+	**/
+	public static TuningTable fromScala(File file, int sampleRate, int referenceKey, double referenceFreq)
+			throws IOException {
+		try (Reader reader = new FileReader(file)) {
+			return fromScala(reader, sampleRate, referenceKey, referenceFreq);
+		}
+	}
+
+
+	/**
+	Creates a table from a Scala scale, with the reference key on the scale's first degree.
+	The scale is a description line, the number of degrees, then each degree above 1/1,
+	the last being the period, as cents if it has a decimal point or as a ratio otherwise.
+	Lines starting with ! are comments
+	@param reader the scale, which is not closed
+	@param sampleRate the sample rate of the oscillators the table is used by
+	@param referenceKey the MIDI key playing the reference frequency, such as 60 for middle C
+	@param referenceFreq the frequency of the reference key
+	@return the table
+	@throws IOException if the scale could not be read or is not a Scala scale
+	**/
+	public static TuningTable fromScala(Reader reader, int sampleRate, int referenceKey, double referenceFreq)
+			throws IOException {
+
+		BufferedReader lines = new BufferedReader(reader);
+		String description = nextScalaLine(lines);
+		if (description == null) throw new IOException("Scala scale is empty");
+
+		double[] degreeCents;
+		String countLine = nextScalaLine(lines);
+		if (countLine == null) throw new IOException("Scala scale has no degree count");
+		try {
+			degreeCents = new double[Integer.parseInt(firstToken(countLine))];
+		} catch (RuntimeException e) {
+			throw new IOException("Bad Scala degree count: " + countLine);
+		}
+
+		for (int i = 0; i < degreeCents.length; i++) {
+			String line = nextScalaLine(lines);
+			if (line == null) throw new IOException("Scala scale has " + i + " of its " + degreeCents.length + " degrees");
+			try {
+				degreeCents[i] = parseScalaPitch(firstToken(line));
+			} catch (RuntimeException e) {
+				throw new IOException("Bad Scala pitch: " + line);
+			}
+		}
+
+		if (degreeCents.length == 0 || !(degreeCents[degreeCents.length - 1] > 0)) {
+			throw new IOException("Scala scale needs a period above 1/1");
+		}
+		return fromScale(description.trim(), degreeCents, sampleRate, referenceKey, referenceFreq);
+	}
+
+
+	/**
+	Creates a table with the same frequencies for another sample rate
+	@param sampleRate the sample rate of the oscillators the new table is used by
+	@return the table
+	**/
+	public TuningTable withSampleRate(int sampleRate) {
+		if (sampleRate == this.sampleRate) return this;
+		return new TuningTable(this.description, this.frequencies, sampleRate);
+	}
+
+
+	/**
+	Returns the frequency of a key in twelve tone equal temperament with A4 at 440 Hz,
+	without needing a table for a sample rate
+	@param key the MIDI key number, keys outside 0 to 127 are played an octave above or below one inside
+	@return the frequency of the key
+	**/
+	static double standardFrequency(int key) {
+		return octaveOf(STANDARD_FREQUENCIES, key);
+	}
+
+
+	/**
+	@param a4Freq the frequency of A4
+	@return the frequency of every key in twelve tone equal temperament
+	**/
+	private static double[] equalTemperamentFrequencies(double a4Freq) {
+		double[] frequencies = new double[KEY_COUNT];
+		for (int key = 0; key < KEY_COUNT; key++) {
+			frequencies[key] = a4Freq * Math.pow(2, (key - A4_KEY) / (double) OCTAVE_KEYS);
+		}
+		return frequencies;
+	}
+
+
+	/**
+	Looks up a key in a table, moving keys outside of it by whole octaves until they are inside
+	@param table a value for each MIDI key, such as the frequencies
+	@param key the MIDI key number
+	@return the value of the key, doubled for each octave it was moved down and halved for each octave it was moved up
+	**/
+	private static double octaveOf(double[] table, int key) {
+		if (key >= 0 && key < KEY_COUNT) return table[key];
+
+		int octaves = (key < 0) ? -Math.floorDiv(-key + OCTAVE_KEYS - 1, OCTAVE_KEYS)
+				: (key - KEY_COUNT) / OCTAVE_KEYS + 1;
+		return Math.scalb(table[key - octaves * OCTAVE_KEYS], octaves);
+	}
+
+
+	/**
+	@return the next line of a Scala file which is not a comment, or null at the end of the file
+	**/
+	private static String nextScalaLine(BufferedReader lines) throws IOException {
+		String line;
+		do {
+			line = lines.readLine();
+		} while (line != null && line.startsWith("!"));
+		return line;
+	}
+
+
+	/**
+	@return the text before the first space of a line, which is all Scala reads of count and pitch lines
+	**/
+	private static String firstToken(String line) {
+		return line.trim().split("\\s+")[0];
+	}
+
+
+	/**
+	Reads a Scala pitch, either cents such as 701.955 or a ratio such as 3/2 or 2
+	@param pitch the pitch
+	@return the pitch in cents above 1/1
+	**/
+	private static double parseScalaPitch(String pitch) {
+		if (pitch.indexOf('.') >= 0) return Double.parseDouble(pitch);
+
+		int slash = pitch.indexOf('/');
+		double numerator = Long.parseLong((slash < 0) ? pitch : pitch.substring(0, slash));
+		double denominator = (slash < 0) ? 1 : Long.parseLong(pitch.substring(slash + 1));
+		if (!(numerator > 0 && denominator > 0)) throw new IllegalArgumentException("Ratio must be positive: " + pitch);
+		return OCTAVE_CENTS * Math.log(numerator / denominator) / Math.log(2);
+	}
+
+
+	private static void checkKey(int key) {
+		if (key < 0 || key >= KEY_COUNT) throw new IllegalArgumentException("Key must be 0 to 127: " + key);
+	}
+
+
+	private static void checkFrequency(double freq) {
+		if (!(freq > 0) || Double.isInfinite(freq)) throw new IllegalArgumentException("Frequency must be positive: " + freq);
+	}
+
+	// Getters
+
+	/**
+	@param key the MIDI key number, keys outside 0 to 127 are played an octave above or below one inside
+	@return the frequency of the key
+	**/
+	public double getFrequency(int key) {
+		return octaveOf(this.frequencies, key);
+	}
+
+	/**
+	@param key the MIDI key number, keys outside 0 to 127 are played an octave above or below one inside
+	@return the amount an oscillator's phase moves each sample to play the key (frequency / sample rate),
+	at most 0.5 for keys above the Nyquist frequency
+	**/
+	public double getPhaseIncrement(int key) {
+		return Math.min(octaveOf(this.phaseIncrements, key), MAX_PHASE_INCREMENT);
+	}
+
+	/**
+	@return the sample rate of the oscillators the table is used by
+	**/
+	public int getSampleRate() {
+		return this.sampleRate;
+	}
+
+	/**
+	@return the name of the tuning
+	**/
+	public String getDescription() {
+		return this.description;
+	}
+
+	@Override
+	public String toString() {
+		return this.description;
+	}
+}
@@ -0,0 +1,259 @@
+package simplesynth;
+
+/**
+Voice applies the attack decay sustain release envelope to an oscillator for one note
+at a time. Voices are created once and reused for each new note, so starting a note 
+does not allocate anything. A voice is rendered in control blocks, the oscillator renders 
+the whole block, the EnvelopeGenerator renders the amplitude of every sample in the block, 
+and the two are multiplied and added to the output, where full scale is -1 to 1. 
+Releasing the key and changes to the envelope take effect between blocks, the control 
+rate sets how many samples are in a block.
+**/
+
+public class Voice {
+	
+	static final int DEFAULT_CONTROL_RATE = 64; // Samples rendered between envelope updates
+	
+	// The oscillator renders at this amplitude, the envelope is applied afterwards
+	private static final double UNIT_AMPLITUDE = 1.0;
+	
+	// Envelope amplitudes are percentages, an amplitude of 100 is a full scale (-1 to 1) sample
+	static final double FULL_SCALE_AMPLITUDE = 100.0;
+	
+	// Applies the envelope, chosen when the synth starts
+	private static final RenderKernel KERNEL = RenderBackend.kernel();
+	
+	private final Oscillator osc;
+	private final EnvelopeGenerator envelope;
+	private final int controlRate;
+	
+	private int key; // Identifies the note the voice is playing
+	
+	private float[] block; // Samples rendered by the oscillator for the current block
+	private float[] gains; // Envelope amplitudes for the current block
+	
+	
+	/**
+	Constructor for a voice with the default control rate, the voice is silent until a note is started
+	@param osc the oscillator the voice plays, it should not be shared with other voices
+	@param sampleRate the sample rate of the oscillator
+	**/
+	public Voice(Oscillator osc, int sampleRate) {
+		this(osc, sampleRate, DEFAULT_CONTROL_RATE);
+	}
+	
+	
+	/**
+	Constructor for a voice with a linear envelope, the voice is silent until a note is started
+	@param osc the oscillator the voice plays, it should not be shared with other voices
+	@param sampleRate the sample rate of the oscillator
+	@param controlRate the number of samples rendered between envelope updates
+	**/
+	public Voice(Oscillator osc, int sampleRate, int controlRate) {
+		this(osc, new EnvelopeGenerator(sampleRate), controlRate);
+	}
+	
+	
+	/**
+	Constructor for a voice, the voice is silent until a note is started
+	@param osc the oscillator the voice plays, it should not be shared with other voices
+	@param envelope the envelope the voice applies to the oscillator, it should not be shared with other voices
+	@param controlRate the number of samples rendered between envelope updates
+	**/
+	public Voice(Oscillator osc, EnvelopeGenerator envelope, int controlRate) {
+		
+		if (controlRate < 1) throw new IllegalArgumentException("Control rate must be positive: " + controlRate);
+		
+		this.osc = osc;
+		this.envelope = envelope;
+		this.controlRate = controlRate;
+		
+		// Initallising the block arrays
+		this.block = new float[controlRate];
+		this.gains = new float[controlRate];
+	}
+	
+	
+	/**
+	Starts a new note on the voice, replacing any note it was playing. If the voice 
+	is still playing, the attack starts from the current amplitude rather than silence
+	@param key identifies the note, used to find the voice again when the note is released
+	@param freq the frequency of the note
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@param a attack time (seconds)
+	@param d decay time (seconds)
+	@param s sustain amplitude relative to the max amplitude (0 to 100)
+	@param r release time (seconds)
+	@throws IllegalArgumentException if an envelope value is outside of its EnvelopeParameter range
+	**/
+	public void noteOn(int key, double freq, double maxAmplitude,
+			double a, double d, double s, double r) {
+		setEnvelope(key, maxAmplitude, a, d, s, r);
+		this.osc.setFreq(freq); // Setting osc freq to the note freq
+		trigger();
+	}
+	
+	
+	/**
+	Starts a new note on the voice at the pitch a tuning gives its key, replacing any note 
+	it was playing. If the voice is still playing, the attack starts from the current amplitude 
+	rather than silence
+	@param key the MIDI key number of the note, used to find the voice again when the note is released
+	@param tuning gives the note's phase increment, and must be for the voice's sample rate
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@param a attack time (seconds)
+	@param d decay time (seconds)
+	@param s sustain amplitude relative to the max amplitude (0 to 100)
+	@param r release time (seconds)
+	@throws IllegalArgumentException if an envelope value is outside of its EnvelopeParameter range
+	**/
+	public void noteOn(int key, TuningTable tuning, double maxAmplitude,
+			double a, double d, double s, double r) {
+		setEnvelope(key, maxAmplitude, a, d, s, r);
+		this.osc.setPhaseIncrement(tuning.getPhaseIncrement(key)); // Setting osc freq without dividing
+		trigger();
+	}
+	
+	
+	/**
+	Sets the envelope of a new note, before the oscillator is set to its pitch, so a bad
+	envelope value does not change the pitch of a note that is still playing
+	@param key identifies the note
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@param a attack time (seconds)
+	@param d decay time (seconds)
+	@param s sustain amplitude relative to the max amplitude (0 to 100)
+	@param r release time (seconds)
+	**/
+	private void setEnvelope(int key, double maxAmplitude, double a, double d, double s, double r) {
+		
+		this.key = key;
+		
+		this.envelope.setParameter(EnvelopeParameter.ATTACK, a);
+		this.envelope.setParameter(EnvelopeParameter.DECAY, d);
+		this.envelope.setParameter(EnvelopeParameter.SUSTAIN, s);
+		this.envelope.setParameter(EnvelopeParameter.RELEASE, r);
+		this.envelope.setMaxAmplitude(maxAmplitude / FULL_SCALE_AMPLITUDE);
+	}
+	
+	
+	/**
+	Starts the envelope of a note whose envelope and pitch have been set
+	**/
+	private void trigger() {
+		
+		// Starting the wave at the beginning of its period, unless
+		// that would cut into a note that is still playing
+		if (!this.envelope.isActive()) this.osc.resetPhase(); 
+		
+		this.envelope.trigger();
+	}
+	
+	
+	/**
+	Renders the voice and adds it to the output. Rendering stops early if the 
+	note finishes part way through
+	@param out the array the samples are added to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@return the number of samples rendered
+	**/
+	public int mix(float[] out, int offset, int length) {
+		
+		int mixed = 0;
+		
+		while (mixed < length) {
+			int requested = Math.min(this.controlRate, length - mixed);
+			int count = renderBlock(requested);
+			
+			// Scaling the wave by the envelope, and adding it to the output
+			KERNEL.multiplyAdd(out, offset + mixed, this.block, this.gains, count);
+			mixed += count;
+			
+			if (count < requested) break; // The note has finished
+		}
+		
+		return mixed;
+	}
+	
+	
+	/**
+	Renders the next block of the note's envelope and oscillator. The envelope renders its 
+	amplitudes first, so the oscillator only renders as many samples as the note has left
+	@param length the number of samples to render, at most the control rate
+	@return the number of samples rendered into the block
+	**/
+	private int renderBlock(int length) {
+		
+		int count = this.envelope.render(this.gains, 0, length);
+		if (count == 0) return 0; // The note finished at the start of the block
+		
+		osc.setAmplitude(UNIT_AMPLITUDE);
+		osc.render(this.block, 0, count); // Continuing from the oscillator's current phase
+		
+		return count;
+	}
+	
+	
+	// Public methods
+	
+	/**
+	Releases the note, the voice will continue through the release envelope
+	**/
+	public void release() {
+		this.envelope.release();
+	}
+	
+	
+	/**
+	Cancels the note, the voice immediately stops playing
+	**/
+	public void cancel() {
+		this.envelope.cancel();
+	}
+	
+	
+	// Getters
+	
+	/**
+	@return true if the voice is still playing a note
+	**/
+	public boolean isActive() {
+		return this.envelope.isActive();
+	}
+	
+	/**
+	@return true if the key of the note the voice is playing is still pressed
+	**/
+	public boolean isPressed() {
+		return this.envelope.isPressed();
+	}
+	
+	/**
+	@return the key of the note the voice is playing, or last played
+	**/
+	public int getKey() {
+		return this.key;
+	}
+	
+	/**
+	@return the envelope amplitude of the next sample to be rendered
+	**/
+	public double getCurrentAmplitude() {
+		return this.envelope.getLevel() * FULL_SCALE_AMPLITUDE;
+	}
+	
+	/**
+	@return the oscillator the voice plays
+	**/
+	public Oscillator getOscillator() {
+		return this.osc;
+	}
+	
+	/**
+	@return the envelope the voice applies to the oscillator
+	**/
+	public EnvelopeGenerator getEnvelope() {
+		return this.envelope;
+	}
+}
@@ -0,0 +1,532 @@
+package simplesynth;
+
+import java.util.Arrays;
+
+/**
+VoiceEngine is a polyphonic synth engine. It holds a fixed pool of voices, each with 
+its own oscillator, which are created once and reused for every note. Rendering mixes 
+all of the playing voices into one block, which is silent when nothing is playing, 
+so the engine can be rendered continuously by a single thread such as the AudioOutput.
+When every voice is playing, a new note steals a voice using the stealing policy.
+
+Only the render thread touches the voices. Other threads (such as the GUI) start and 
+release notes and change the oscillator mix by adding events to a lock-free EventQueue,
+so the render thread never waits on a lock or sees half of an update. Events are applied
+in order at the start of the next block, or can be given the frame they should happen on, 
+counted in samples since the engine started rendering. The block is split at that frame,
+so the change lands on the exact sample rather than at the start of a block. Events due 
+before the block are applied at its start.
+With more than one render thread, the voices are rendered in parallel by a ParallelMixer.
+The time each block takes to render is recorded against its deadline in the DeadlineStats.
+**/
+
+public class VoiceEngine {
+	
+	private final Voice[] voices;
+	private final long[] startOrder; // When the note each voice is playing started
+	private long noteCount; // Number of notes started, used to order the voices
+	
+	private final VoiceStealingPolicy stealingPolicy;
+	private final int sampleRate;
+	private volatile TuningTable tuning; // Pitches of keys started with keyOn, only replaced on the render thread
+	
+	private final EventQueue events; // Changes waiting to be applied by the render thread
+	private volatile long framePosition; // The frame at the start of the next block
+	
+	private volatile int activeVoiceCount; // Number of voices playing after the last block
+	
+	private final ParallelMixer mixer; // null when the voices are rendered on the render thread only
+	private final DeadlineStats stats;
+	
+	
+	/**
+	Constructor for the engine, using the standard oscillators
+	@param voiceCount the number of notes that can be played at once
+	@param stealingPolicy how a voice is chosen when every voice is playing
+	@param sampleRate the sample rate of the oscillators
+	**/
+	public VoiceEngine(int voiceCount, VoiceStealingPolicy stealingPolicy, int sampleRate) {
+		this(voiceCount, stealingPolicy, sampleRate, OscillatorType.STANDARD);
+	}
+	
+	
+	/**
+	Constructor for the engine, using the standard oscillators
+	@param voiceCount the number of notes that can be played at once
+	@param stealingPolicy how a voice is chosen when every voice is playing
+	@param profile sets the sample rate of the oscillators and the control rate
+	**/
+	public VoiceEngine(int voiceCount, VoiceStealingPolicy stealingPolicy, LatencyProfile profile) {
+		this(voiceCount, stealingPolicy, profile.getSampleRate(), OscillatorType.STANDARD, profile.getControlRate());
+	}
+	
+	
+	/**
+	Constructor for the engine
+	@param voiceCount the number of notes that can be played at once
+	@param stealingPolicy how a voice is chosen when every voice is playing
+	@param sampleRate the sample rate of the oscillators
+	@param type the kind of oscillator each voice's AdditiveOscillator is built from
+	**/
+	public VoiceEngine(int voiceCount, VoiceStealingPolicy stealingPolicy, int sampleRate,
+			OscillatorType type) {
+		this(voiceCount, stealingPolicy, sampleRate, type, Voice.DEFAULT_CONTROL_RATE);
+	}
+	
+	
+	/**
+	Constructor for the engine
+	@param voiceCount the number of notes that can be played at once
+	@param stealingPolicy how a voice is chosen when every voice is playing
+	@param sampleRate the sample rate of the oscillators
+	@param type the kind of oscillator each voice's AdditiveOscillator is built from
+	@param controlRate the number of samples each voice renders between envelope updates
+	**/
+	public VoiceEngine(int voiceCount, VoiceStealingPolicy stealingPolicy, int sampleRate,
+			OscillatorType type, int controlRate) {
+		this(voiceCount, stealingPolicy, sampleRate, type, controlRate, 1);
+	}
+	
+	
+	/**
+	Constructor for the engine. With more than one thread, worker threads are started which 
+	run until the engine is closed
+	@param voiceCount the number of notes that can be played at once
+	@param stealingPolicy how a voice is chosen when every voice is playing
+	@param sampleRate the sample rate of the oscillators
+	@param type the kind of oscillator each voice's AdditiveOscillator is built from
+	@param controlRate the number of samples each voice renders between envelope updates
+	@param threads the number of threads rendering each block, including the render thread
+	**/
+	public VoiceEngine(int voiceCount, VoiceStealingPolicy stealingPolicy, int sampleRate,
+			OscillatorType type, int controlRate, int threads) {
+		
+		if (voiceCount < 1) throw new IllegalArgumentException("Voice count must be positive: " + voiceCount);
+		if (threads < 1) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+		
+		this.stealingPolicy = stealingPolicy;
+		this.sampleRate = sampleRate;
+		this.tuning = TuningTable.equalTemperament(sampleRate);
+		this.events = new EventQueue();
+		
+		// Creating every voice up front, so starting a note never allocates
+		this.voices = new Voice[voiceCount];
+		this.startOrder = new long[voiceCount];
+		for (int i = 0; i < voiceCount; i++) {
+			this.voices[i] = new Voice(new AdditiveOscillator(sampleRate, type), sampleRate, controlRate);
+		}
+		
+		// More threads than voices would leave threads with nothing to render
+		int usedThreads = Math.min(threads, voiceCount);
+		this.mixer = (usedThreads > 1) ? new ParallelMixer(usedThreads, voiceCount) : null;
+		this.stats = new DeadlineStats(sampleRate);
+	}
+	
+	
+	/**
+	Mixes every playing voice into the output. Notes started or released and changes to 
+	the oscillator mix are applied on their frame, or at the start of the block if they 
+	have no frame. 
+	Must only be called from the render thread
+	@param out the array the mixed samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@return the number of samples rendered
+	**/
+	public int render(float[] out, int offset, int length) {
+		
+		long start = System.nanoTime();
+		long blockStart = this.framePosition;
+		
+		// Applying the events due, then rendering up to the next event's frame
+		int done = 0;
+		while (done < length) {
+			int count = this.events.apply(blockStart + done, length - done);
+			mixVoices(out, offset + done, count);
+			done += count;
+		}
+		this.framePosition = blockStart + length;
+		
+		int active = 0;
+		for (Voice voice : this.voices) {
+			if (voice.isActive()) active++;
+		}
+		this.activeVoiceCount = active;
+		
+		this.stats.record(length, System.nanoTime() - start);
+		return length;
+	}
+	
+	
+	/**
+	Stops the worker threads, if the engine has any. The engine must not be rendered afterwards
+	**/
+	public void close() {
+		if (this.mixer != null) this.mixer.close();
+	}
+	
+	
+	/**
+	Mixes every playing voice into part of the output
+	@param out the array the mixed samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	**/
+	private void mixVoices(float[] out, int offset, int length) {
+		
+		if (this.mixer != null) {
+			this.mixer.mix(this.voices, out, offset, length);
+		} else {
+			Arrays.fill(out, offset, offset + length, 0);
+			for (Voice voice : this.voices) {
+				if (voice.isActive()) voice.mix(out, offset, length);
+			}
+		}
+	}
+	
+	
+	/**
+	Starts playing a note on a free voice, or on a stolen voice if every voice is playing.
+	The note starts at the beginning of the next block
+	@param key identifies the note, used to release it later
+	@param freq the frequency of the note
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@param a attack time (seconds)
+	@param d decay time (seconds)
+	@param s sustain amplitude relative to the max amplitude (0 to 100)
+	@param r release time (seconds)
+	@throws IllegalArgumentException if the frequency is not positive and finite, or an envelope 
+	value is outside of its EnvelopeParameter range
+	**/
+	public void noteOn(int key, double freq, double maxAmplitude,
+			double a, double d, double s, double r) {
+		noteOn(key, freq, maxAmplitude, a, d, s, r, EventQueue.IMMEDIATE);
+	}
+	
+	
+	/**
+	Starts playing a note on a free voice, or on a stolen voice if every voice is playing.
+	The note starts on the frame given, or at the start of the next block if that frame has passed
+	@param key identifies the note, used to release it later
+	@param freq the frequency of the note
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@param a attack time (seconds)
+	@param d decay time (seconds)
+	@param s sustain amplitude relative to the max amplitude (0 to 100)
+	@param r release time (seconds)
+	@param frame the frame the note starts on, counted in samples since the engine started rendering
+	@throws IllegalArgumentException if the frequency is not positive and finite, or an envelope 
+	value is outside of its EnvelopeParameter range
+	**/
+	public void noteOn(int key, double freq, double maxAmplitude,
+			double a, double d, double s, double r, long frame) {
+		
+		if (!(freq > 0) || Double.isInfinite(freq)) throw new IllegalArgumentException("Frequency must be positive: " + freq);
+		queueNoteOn(new NoteOnEvent(key, freq, maxAmplitude, a, d, s, r, frame));
+	}
+	
+	
+	/**
+	Starts playing a MIDI key, at the pitch the engine's tuning gives it, on a free voice, 
+	or on a stolen voice if every voice is playing. The note starts at the beginning of the next block
+	@param key the MIDI key number, used to release the note later
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@param a attack time (seconds)
+	@param d decay time (seconds)
+	@param s sustain amplitude relative to the max amplitude (0 to 100)
+	@param r release time (seconds)
+	@throws IllegalArgumentException if an envelope value is outside of its EnvelopeParameter range
+	**/
+	public void keyOn(int key, double maxAmplitude, double a, double d, double s, double r) {
+		keyOn(key, maxAmplitude, a, d, s, r, EventQueue.IMMEDIATE);
+	}
+	
+	
+	/**
+	Starts playing a MIDI key, at the pitch the engine's tuning gives it, on a free voice, 
+	or on a stolen voice if every voice is playing. The note starts on the frame given, 
+	or at the start of the next block if that frame has passed, and is pitched by the tuning 
+	in use on that frame
+	@param key the MIDI key number, used to release the note later
+	@param maxAmplitude the amplitude at the end of the attack envelope
+	@param a attack time (seconds)
+	@param d decay time (seconds)
+	@param s sustain amplitude relative to the max amplitude (0 to 100)
+	@param r release time (seconds)
+	@param frame the frame the note starts on, counted in samples since the engine started rendering
+	@throws IllegalArgumentException if an envelope value is outside of its EnvelopeParameter range
+	**/
+	public void keyOn(int key, double maxAmplitude, double a, double d, double s, double r, long frame) {
+		queueNoteOn(new NoteOnEvent(key, maxAmplitude, a, d, s, r, frame));
+	}
+	
+	
+	/**
+	Queues a note for the render thread once its envelope has been checked, 
+	so a bad value is not found on the render thread
+	@param event the note
+	@throws IllegalArgumentException if an envelope value is outside of its EnvelopeParameter range
+	**/
+	private void queueNoteOn(NoteOnEvent event) {
+		
+		EnvelopeParameter.ATTACK.check(event.a);
+		EnvelopeParameter.DECAY.check(event.d);
+		EnvelopeParameter.SUSTAIN.check(event.s);
+		EnvelopeParameter.RELEASE.check(event.r);
+		
+		this.events.add(event);
+	}
+	
+	
+	/**
+	Releases every voice that is playing the key and is still pressed.
+	The note is released at the beginning of the next block
+	@param key identifies the note
+	**/
+	public void noteOff(int key) {
+		noteOff(key, EventQueue.IMMEDIATE);
+	}
+	
+	
+	/**
+	Releases every voice that is playing the key and is still pressed.
+	The note is released on the frame given, or at the start of the next block if that frame has passed
+	@param key identifies the note
+	@param frame the frame the note is released on, counted in samples since the engine started rendering
+	**/
+	public void noteOff(int key, long frame) {
+		this.events.add(new NoteOffEvent(key, frame));
+	}
+	
+	
+	/**
+	Sets the amplitude of each individual oscillator on every voice,
+	from the beginning of the next block
+	@param sqAmp the amplitude of the square wave oscillator
+	@param stAmp the amplitude of the sawtooth wave oscillator
+	@param siAmp the amplitude of the sine wave oscillator
+	**/
+	public void setIndividualAmplitudes(double sqAmp, double stAmp, double siAmp) {
+		setIndividualAmplitudes(sqAmp, stAmp, siAmp, EventQueue.IMMEDIATE);
+	}
+	
+	
+	/**
+	Sets the amplitude of each individual oscillator on every voice, on the frame given, 
+	or at the start of the next block if that frame has passed
+	@param sqAmp the amplitude of the square wave oscillator
+	@param stAmp the amplitude of the sawtooth wave oscillator
+	@param siAmp the amplitude of the sine wave oscillator
+	@param frame the frame the mix changes on, counted in samples since the engine started rendering
+	**/
+	public void setIndividualAmplitudes(double sqAmp, double stAmp, double siAmp, long frame) {
+		this.events.add(new MixEvent(new OscillatorMix(sqAmp, stAmp, siAmp), frame));
+	}
+	
+	
+	/**
+	Replaces the tuning which pitches the keys started with keyOn, from the beginning 
+	of the next block. Notes already playing keep their pitch
+	@param tuning the new tuning
+	@throws IllegalArgumentException if the tuning is for another sample rate
+	**/
+	public void setTuning(TuningTable tuning) {
+		setTuning(tuning, EventQueue.IMMEDIATE);
+	}
+	
+	
+	/**
+	Replaces the tuning which pitches the keys started with keyOn, on the frame given, 
+	or at the start of the next block if that frame has passed. Notes already playing keep their pitch
+	@param tuning the new tuning
+	@param frame the frame the tuning changes on, counted in samples since the engine started rendering
+	@throws IllegalArgumentException if the tuning is for another sample rate
+	**/
+	public void setTuning(TuningTable tuning, long frame) {
+		
+		if (tuning.getSampleRate() != this.sampleRate) {
+			throw new IllegalArgumentException("Tuning sample rate " + tuning.getSampleRate() 
+					+ " does not match the engine's " + this.sampleRate);
+		}
+		
+		this.events.add(new TuningEvent(tuning, frame));
+	}
+	
+	
+	/**
+	Chooses the voice a new note will be played on
+	@param key identifies the new note
+	@return the index of the voice
+	**/
+	private int chooseVoice(int key) {
+		
+		// Reusing the voice already playing the note
+		if (this.stealingPolicy == VoiceStealingPolicy.SAME_NOTE) {
+			for (int i = 0; i < this.voices.length; i++) {
+				if (this.voices[i].isActive() && this.voices[i].getKey() == key) return i;
+			}
+		}
+		
+		// Using a free voice if there is one
+		for (int i = 0; i < this.voices.length; i++) {
+			if (!this.voices[i].isActive()) return i;
+		}
+		
+		// Every voice is playing, so one has to be stolen
+		int chosen = 0;
+		for (int i = 1; i < this.voices.length; i++) {
+			if (this.stealingPolicy == VoiceStealingPolicy.QUIETEST) {
+				if (Math.abs(this.voices[i].getCurrentAmplitude()) < 
+						Math.abs(this.voices[chosen].getCurrentAmplitude())) chosen = i;
+			} else if (this.startOrder[i] < this.startOrder[chosen]) {
+				chosen = i;
+			}
+		}
+		return chosen;
+	}
+	
+	
+	/**
+	@return the number of voices that were playing a note at the end of the last block
+	**/
+	public int activeVoiceCount() {
+		return this.activeVoiceCount;
+	}
+	
+	
+	/**
+	@return the frame at the start of the next block to be rendered, counted in samples since the engine started rendering
+	**/
+	public long getFramePosition() {
+		return this.framePosition;
+	}
+	
+	
+	/**
+	@return the tuning pitching the keys started with keyOn, which changes once a new tuning's frame is rendered
+	**/
+	public TuningTable getTuning() {
+		return this.tuning;
+	}
+	
+	
+	/**
+	@return how close each block came to missing its deadline
+	**/
+	public DeadlineStats getDeadlineStats() {
+		return this.stats;
+	}
+	
+	
+	/**
+	A note being started, queued for the render thread
+	**/
+	private class NoteOnEvent extends EventQueue.Event {
+		
+		final int key;
+		final boolean tuned; // Pitched by the engine's tuning on the note's frame, rather than by freq
+		final double freq;
+		final double maxAmplitude;
+		final double a, d, s, r;
+		
+		/**
+		Constructor for a note at a frequency
+		**/
+		NoteOnEvent(int key, double freq, double maxAmplitude,
+				double a, double d, double s, double r, long frame) {
+			this(key, false, freq, maxAmplitude, a, d, s, r, frame);
+		}
+		
+		/**
+		Constructor for a MIDI key pitched by the engine's tuning
+		**/
+		NoteOnEvent(int key, double maxAmplitude, double a, double d, double s, double r, long frame) {
+			this(key, true, 0, maxAmplitude, a, d, s, r, frame);
+		}
+		
+		private NoteOnEvent(int key, boolean tuned, double freq, double maxAmplitude,
+				double a, double d, double s, double r, long frame) {
+			super(frame);
+			this.key = key;
+			this.tuned = tuned;
+			this.freq = freq;
+			this.maxAmplitude = maxAmplitude;
+			this.a = a;
+			this.d = d;
+			this.s = s;
+			this.r = r;
+		}
+		
+		@Override
+		void apply() {
+			int index = chooseVoice(this.key);
+			if (this.tuned) {
+				voices[index].noteOn(this.key, tuning, this.maxAmplitude, this.a, this.d, this.s, this.r);
+			} else {
+				voices[index].noteOn(this.key, this.freq, this.maxAmplitude, this.a, this.d, this.s, this.r);
+			}
+			startOrder[index] = noteCount++;
+		}
+	}
+	
+	
+	/**
+	A note being released, queued for the render thread
+	**/
+	private class NoteOffEvent extends EventQueue.Event {
+		
+		final int key;
+		
+		NoteOffEvent(int key, long frame) {
+			super(frame);
+			this.key = key;
+		}
+		
+		@Override
+		void apply() {
+			for (Voice voice : voices) {
+				if (voice.isPressed() && voice.getKey() == this.key) voice.release();
+			}
+		}
+	}
+	
+	
+	/**
+	A change to the oscillator mix, queued for the render thread
+	**/
+	private class MixEvent extends EventQueue.Event {
+		
+		final OscillatorMix mix;
+		
+		MixEvent(OscillatorMix mix, long frame) {
+			super(frame);
+			this.mix = mix;
+		}
+		
+		@Override
+		void apply() {
+			for (Voice voice : voices) {
+				this.mix.applyTo((AdditiveOscillator) voice.getOscillator());
+			}
+		}
+	}
+	
+	
+	/**
+	A change to the tuning, queued for the render thread
+	**/
+	private class TuningEvent extends EventQueue.Event {
+		
+		final TuningTable tuning;
+		
+		TuningEvent(TuningTable tuning, long frame) {
+			super(frame);
+			this.tuning = tuning;
+		}
+		
+		@Override
+		void apply() {
+			VoiceEngine.this.tuning = this.tuning;
+		}
+	}
+}
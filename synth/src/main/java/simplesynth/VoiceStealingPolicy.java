@@ -0,0 +1,14 @@
+package simplesynth;
+
+/**
+Enum that represents how the VoiceEngine chooses a voice to play a new note
+when every voice is already playing
+**/
+
+public enum VoiceStealingPolicy {
+	
+	OLDEST, // The voice whose note started first is stolen
+	QUIETEST, // The voice with the lowest envelope amplitude is stolen
+	SAME_NOTE; // A voice already playing the same key is reused, otherwise the oldest is stolen
+	
+}
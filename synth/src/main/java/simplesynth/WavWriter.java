@@ -0,0 +1,228 @@
+package simplesynth;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.Channels;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+WavWriter streams mono float samples to a WAV file. Samples are converted to PCM 
+as they are written, so the whole file never has to be held in memory. The sizes 
+in the header are not known until the end, so they are filled in when the writer is closed.
+To write the samples straight into the file's memory instead, use a MappedWavSink.
+**/
+
+public class WavWriter implements PcmSink {
+	
+	static final int HEADER_SIZE = 44;
+	private static final int FORMAT_PCM = 1; // WAV format tag for integer PCM
+	private static final int FORMAT_FLOAT = 3; // WAV format tag for IEEE float
+	private static final int CHANNELS = 1;
+	private static final boolean SOFT_LIMIT = true; // Soft limit rather than hard clip
+	
+	private final RandomAccessFile file;
+	private final OutputStream out;
+	private final PcmConverter converter;
+	private final int sampleRate;
+	private final int bytesPerSample;
+	
+	private byte[] bytes; // Converted samples waiting to be written
+	private ByteBuffer buffer; // Wraps the bytes, so float buffers are converted straight into them
+	private long frameCount; // Number of samples written
+	
+	
+	/**
+	Constructor which creates the file and writes a header with empty sizes
+	@param file the file written to, replaced if it exists
+	@param sampleRate the sample rate of the samples
+	@param format the sample format stored in the file
+	@throws IOException
+	**/
+	public WavWriter(File file, int sampleRate, SampleFormat format) throws IOException {
+		
+		this.file = new RandomAccessFile(file, "rw");
+		this.file.setLength(0);
+		this.out = new BufferedOutputStream(Channels.newOutputStream(this.file.getChannel()));
+		
+		// WAV files are always little endian
+		this.converter = new PcmConverter(format, false, SOFT_LIMIT);
+		this.sampleRate = sampleRate;
+		this.bytesPerSample = format.getBytesPerSample();
+		this.bytes = new byte[0];
+		this.buffer = ByteBuffer.wrap(this.bytes);
+		
+		this.out.write(header(format, sampleRate, 0));
+	}
+	
+	
+	/**
+	Converts a block of samples and writes them to the file
+	@param samples the samples (full scale is -1 to 1)
+	@param offset the index in samples of the first sample
+	@param length the number of samples to write
+	@throws IOException
+	**/
+	public void write(float[] samples, int offset, int length) throws IOException {
+		
+		grow(length);
+		int count = this.converter.convert(samples, offset, length, this.bytes, 0);
+		this.out.write(this.bytes, 0, count);
+		this.frameCount += length;
+	}
+	
+	
+	@Override
+	public void write(FloatBuffer samples) throws IOException {
+		
+		int length = samples.remaining();
+		grow(length);
+		this.buffer.clear();
+		this.converter.convert(samples, this.buffer);
+		this.out.write(this.bytes, 0, this.buffer.position());
+		this.frameCount += length;
+	}
+	
+	
+	@Override
+	public void write(ByteBuffer pcm) throws IOException {
+		
+		int length = pcm.remaining();
+		if (length % this.bytesPerSample != 0) {
+			throw new IllegalArgumentException("Not a whole number of samples: " + length + " bytes");
+		}
+		
+		if (pcm.hasArray()) {
+			this.out.write(pcm.array(), pcm.arrayOffset() + pcm.position(), length);
+			pcm.position(pcm.limit());
+		} else {
+			grow(length / this.bytesPerSample);
+			pcm.get(this.bytes, 0, length);
+			this.out.write(this.bytes, 0, length);
+		}
+		this.frameCount += length / this.bytesPerSample;
+	}
+	
+	
+	/**
+	Grows the byte array to hold a number of samples. It is only grown, 
+	so it is reused between blocks
+	@param length the number of samples
+	**/
+	private void grow(int length) {
+		if (this.bytes.length < length * this.bytesPerSample) {
+			this.bytes = new byte[length * this.bytesPerSample];
+			this.buffer = ByteBuffer.wrap(this.bytes);
+		}
+	}
+	
+	
+	/**
+	Writes the buffered samples to the file. The sizes in the header are only
+	filled in when the writer is closed
+	@throws IOException
+	**/
+	@Override
+	public void flush() throws IOException {
+		this.out.flush();
+	}
+	
+	
+	/**
+	Writes the remaining samples, fills in the sizes in the header and closes the file
+	@throws IOException
+	**/
+	@Override
+	public void close() throws IOException {
+		
+		try {
+			this.out.flush();
+			this.file.seek(0);
+			this.file.write(header(this.converter.getFormat(), this.sampleRate, this.frameCount * this.bytesPerSample));
+		} finally {
+			this.file.close();
+		}
+	}
+	
+	
+	/**
+	Creates the RIFF header for a mono file
+	@param format the sample format stored in the file
+	@param sampleRate the sample rate of the samples
+	@param dataSize the number of bytes of samples in the file
+	@return the header
+	**/
+	static byte[] header(SampleFormat format, int sampleRate, long dataSize) {
+		
+		if (dataSize > 0xFFFFFFFFL - HEADER_SIZE) throw new IllegalStateException("WAV file too large: " + dataSize);
+		
+		int formatTag = (format == SampleFormat.PCM_FLOAT_32) ? FORMAT_FLOAT : FORMAT_PCM;
+		int blockAlign = CHANNELS * format.getBytesPerSample();
+		
+		byte[] header = new byte[HEADER_SIZE];
+		int o = 0;
+		o = writeText("RIFF", header, o);
+		o = writeInt(dataSize + HEADER_SIZE - 8, 4, header, o); // Size of the rest of the file
+		o = writeText("WAVE", header, o);
+		
+		o = writeText("fmt ", header, o);
+		o = writeInt(16, 4, header, o); // Size of the format chunk
+		o = writeInt(formatTag, 2, header, o);
+		o = writeInt(CHANNELS, 2, header, o);
+		o = writeInt(sampleRate, 4, header, o);
+		o = writeInt((long) sampleRate * blockAlign, 4, header, o); // Bytes per second
+		o = writeInt(blockAlign, 2, header, o);
+		o = writeInt(format.getBytesPerSample() * 8, 2, header, o); // Bits per sample
+		
+		o = writeText("data", header, o);
+		writeInt(dataSize, 4, header, o);
+		return header;
+	}
+	
+	
+	/**
+	Writes the characters of a chunk id to the header
+	@return the index after the last byte written
+	**/
+	private static int writeText(String text, byte[] header, int o) {
+		for (int i = 0; i < text.length(); i++) {
+			header[o++] = (byte) text.charAt(i);
+		}
+		return o;
+	}
+	
+	
+	/**
+	Writes a little endian integer to the header
+	@return the index after the last byte written
+	**/
+	private static int writeInt(long value, int bytes, byte[] header, int o) {
+		for (int i = 0; i < bytes; i++) {
+			header[o++] = (byte) (value >> (8 * i));
+		}
+		return o;
+	}
+	
+	// Getters
+	
+	/**
+	@return the number of samples written
+	**/
+	public long getFrameCount() {
+		return this.frameCount;
+	}
+	
+	/**
+	@return the format of the samples in the file
+	**/
+	@Override
+	public AudioFormat getFormat() {
+		// WAV files are always little endian
+		return this.converter.getFormat().toAudioFormat(this.sampleRate, CHANNELS, false);
+	}
+}
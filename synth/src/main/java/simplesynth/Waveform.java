@@ -0,0 +1,32 @@
+package simplesynth;
+
+/**
+Enum that represents the waveforms the oscillators can produce
+and the shape of a single period of each at unit amplitude
+**/
+
+public enum Waveform {
+	
+	SINE,
+	SAWTOOTH,
+	SQUARE;
+	
+	/**
+	Returns the value of the waveform at a position within its period, matching
+	the output of the Oscillator, SawtoothOscillator and SquareOscillator classes
+	@param phase the position within the period (0 to 1)
+	@return the value of the waveform at unit amplitude
+	**/
+	public double valueAt(double phase) {
+		
+		switch (this) {
+		case SAWTOOTH:
+			return 2 * phase; // Ramps from 0 up to 2 over the period
+		case SQUARE:
+			// High for the first half of each period, where the sine wave is positive
+			return (phase > 0 && phase < 0.5) ? 1 : 0;
+		default:
+			return Math.sin(2.0 * Math.PI * phase);
+		}
+	}
+}
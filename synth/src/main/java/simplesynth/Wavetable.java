@@ -0,0 +1,138 @@
+package simplesynth;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+Wavetable stores a single period of a waveform, sampled at a fixed number of points.
+Tables are immutable and shared, there is only ever one table for each waveform 
+and size, which is created the first time it is asked for.
+**/
+
+public final class Wavetable {
+	
+	public static final int DEFAULT_SIZE = 2048;
+	
+	// Shared tables for each waveform, keyed by their size
+	private static final Map<Waveform, Map<Integer, Wavetable>> TABLES = 
+			new EnumMap<Waveform, Map<Integer, Wavetable>>(Waveform.class);
+	
+	private final Waveform waveform;
+	private final int size;
+	
+	/* The values of the period, with one extra value before the start
+	and two after the end, so interpolation never needs to wrap.
+	values[i + 1] is the value at phase i / size */
+	private final float[] values;
+	
+	
+	/**
+	Constructor samples one period of the waveform into the table
+	@param waveform the waveform the table stores
+	@param size the number of values in the period
+	**/
+	private Wavetable(Waveform waveform, int size) {
+		this.waveform = waveform;
+		this.size = size;
+		this.values = new float[size + 3];
+		
+		for (int i = 0; i < values.length; i++) {
+			// Index 0 is the last value of the previous period
+			int index = (i - 1 + size) % size;
+			values[i] = (float) waveform.valueAt((double) index / size);
+		}
+	}
+	
+	
+	/**
+	Returns the shared table for the waveform with the default size
+	@param waveform the waveform the table stores
+	@return the shared table
+	**/
+	public static Wavetable get(Waveform waveform) {
+		return get(waveform, DEFAULT_SIZE);
+	}
+	
+	
+	/**
+	Returns the shared table for the waveform and size, creating it if needed
+	@param waveform the waveform the table stores
+	@param size the number of values in the period
+	@return the shared table
+	**/
+	public static synchronized Wavetable get(Waveform waveform, int size) {
+		
+		if (size < 1) throw new IllegalArgumentException("Wavetable size must be positive: " + size);
+		
+		Map<Integer, Wavetable> tables = TABLES.get(waveform);
+		if (tables == null) {
+			tables = new HashMap<Integer, Wavetable>();
+			TABLES.put(waveform, tables);
+		}
+		
+		Wavetable table = tables.get(size);
+		if (table == null) {
+			table = new Wavetable(waveform, size);
+			tables.put(size, table);
+		}
+		return table;
+	}
+	
+	
+	/**
+	Reads the table at a position within the period, using linear interpolation
+	@param phase the position within the period (0 to 1), other values are wrapped into it
+	@return the interpolated value
+	**/
+	public float linear(double phase) {
+		double position = (phase - Math.floor(phase)) * size; // Wrapping a phase outside of the period
+		int i = (int) position;
+		if (i >= size) i -= size; // Phase rounded up to the end of the period
+		float fraction = (float) (position - i);
+		
+		float y0 = values[i + 1];
+		return y0 + fraction * (values[i + 2] - y0);
+	}
+	
+	
+	/**
+	Reads the table at a position within the period, using cubic (Catmull-Rom)
+	interpolation through the four nearest values
+	@param phase the position within the period (0 to 1), other values are wrapped into it
+	@return the interpolated value
+	**/
+	public float cubic(double phase) {
+		double position = (phase - Math.floor(phase)) * size; // Wrapping a phase outside of the period
+		int i = (int) position;
+		if (i >= size) i -= size; // Phase rounded up to the end of the period
+		float x = (float) (position - i);
+		
+		float ym1 = values[i];
+		float y0 = values[i + 1];
+		float y1 = values[i + 2];
+		float y2 = values[i + 3];
+		
+		float c1 = 0.5f * (y1 - ym1);
+		float c2 = ym1 - 2.5f * y0 + 2f * y1 - 0.5f * y2;
+		float c3 = 0.5f * (y2 - ym1) + 1.5f * (y0 - y1);
+		return ((c3 * x + c2) * x + c1) * x + y0;
+	}
+	
+	
+	// Getters
+	
+	/**
+	@return the waveform the table stores
+	**/
+	public Waveform getWaveform() {
+		return this.waveform;
+	}
+	
+	/**
+	@return the number of values in the period
+	**/
+	public int getSize() {
+		return this.size;
+	}
+}
@@ -0,0 +1,112 @@
+package simplesynth;
+
+/**
+WavetableOscillator extends on the Oscillator class,
+It reads its waveform from a shared precomputed Wavetable instead of calculating
+each sample, which avoids calling Math.sin for every sample. It can act as a
+sine, sawtooth or square wave oscillator, with the same output as those oscillators
+**/
+
+public class WavetableOscillator extends Oscillator {
+	
+	private final Wavetable table;
+	private final Interpolation interpolation;
+
+	// Constructors
+	
+	/**
+	Constructor for WavetableOscillator by default sets freq to middle c, and amplitude to 100,
+	and uses a table of the default size
+	@param sampleRate sets the sample rate of the oscillator
+	@param waveform the waveform the oscillator produces
+	@param interpolation the interpolation used to read the table
+	**/
+	public WavetableOscillator(int sampleRate, Waveform waveform, Interpolation interpolation) {
+		this(sampleRate, Wavetable.get(waveform), interpolation);
+	}
+	
+	
+	/**
+	Constructor for WavetableOscillator by default sets freq to middle c, and amplitude to 100
+	@param sampleRate sets the sample rate of the oscillator
+	@param table the shared table the oscillator reads from
+	@param interpolation the interpolation used to read the table
+	**/
+	public WavetableOscillator(int sampleRate, Wavetable table, Interpolation interpolation) {
+		super(sampleRate);
+		this.table = table;
+		this.interpolation = interpolation;
+	}
+	
+	
+	/**
+	Creates the frequency as a byte where at time t
+	@param t is the time at which the wave is at (1 sec => t=sampleRate)
+	@return The byte read from the table at time t
+	**/
+	@Override
+	public byte createWave(double t) {
+		double x = t * this.freq / (double) this.sampleRate;
+		return (byte) (lookup(x - Math.floor(x)) * this.amplitude);
+	}
+	
+	
+	/**
+	Renders a block of samples read from the table into the output array
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	@param t the time of the first sample (1 sec => t=sampleRate)
+	**/
+	@Override
+	public void render(float[] out, int offset, int length, double t) {
+		double x = t * this.phaseIncrement;
+		double p = this.phase;
+		
+		// Rendering from the phase at time t, then restoring the accumulator
+		this.phase = x - Math.floor(x);
+		render(out, offset, length);
+		this.phase = p;
+	}
+	
+	
+	/**
+	Renders a block of samples read from the table using the phase accumulator,
+	continuing from where the previous block finished
+	@param out the array the samples are written to
+	@param offset the index in out of the first sample
+	@param length the number of samples to render
+	**/
+	@Override
+	public void render(float[] out, int offset, int length) {
+		float amp = (float) this.amplitude;
+		double p = this.phase;
+		double inc = this.phaseIncrement;
+		
+		// Choosing the interpolation once for the block, rather than every sample
+		if (this.interpolation == Interpolation.CUBIC) {
+			for (int i = 0; i < length; i++) {
+				out[offset + i] = table.cubic(p) * amp;
+				p += inc;
+				if (p >= 1.0) p -= Math.floor(p); // Wrapping the phase at the end of each period, even if it moved more than one
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				out[offset + i] = table.linear(p) * amp;
+				p += inc;
+				if (p >= 1.0) p -= Math.floor(p); // Wrapping the phase at the end of each period, even if it moved more than one
+			}
+		}
+		this.phase = p;
+	}
+	
+	
+	/**
+	Reads the table with the oscillator's interpolation
+	@param phase the position within the period (0 to 1)
+	@return the value of the waveform at unit amplitude
+	**/
+	private float lookup(double phase) {
+		return (this.interpolation == Interpolation.CUBIC) ? table.cubic(phase) : table.linear(phase);
+	}
+}
@@ -0,0 +1,120 @@
+package simplesynth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+Tests that events are applied in frame order and that blocks are split at event frames
+**/
+
+public class EventQueueTest {
+
+	private final List<String> applied = new ArrayList<String>();
+
+
+	/**
+	@return an event which records its name when applied
+	**/
+	private EventQueue.Event event(final String name, long frame) {
+		return new EventQueue.Event(frame) {
+			@Override
+			void apply() {
+				applied.add(name);
+			}
+		};
+	}
+
+
+	@Test
+	public void appliesEventsInFrameOrder() {
+		EventQueue queue = new EventQueue();
+		queue.add(event("c", 30));
+		queue.add(event("a", 10));
+		queue.add(event("b", 20));
+
+		queue.apply(0, 100);
+		queue.apply(10, 90);
+		queue.apply(20, 80);
+		queue.apply(30, 70);
+
+		assertEquals(Arrays.asList("a", "b", "c"), this.applied);
+	}
+
+
+	@Test
+	public void keepsTheOrderEventsWereAddedInOnTheSameFrame() {
+		EventQueue queue = new EventQueue();
+		queue.add(event("first", 5));
+		queue.add(event("second", 5));
+		queue.add(event("third", 5));
+
+		queue.apply(5, 10);
+
+		assertEquals(Arrays.asList("first", "second", "third"), this.applied);
+	}
+
+
+	@Test
+	public void appliesImmediateAndPastEventsAtOnce() {
+		EventQueue queue = new EventQueue();
+		queue.add(event("immediate", EventQueue.IMMEDIATE));
+		queue.add(event("late", 50));
+
+		assertEquals(64, queue.apply(100, 64));
+		assertEquals(Arrays.asList("immediate", "late"), this.applied);
+	}
+
+
+	@Test
+	public void rendersTheWholeBlockWithNoEvents() {
+		assertEquals(256, new EventQueue().apply(0, 256));
+	}
+
+
+	@Test
+	public void stopsRenderingAtTheNextEvent() {
+		EventQueue queue = new EventQueue();
+		queue.add(event("a", 100));
+
+		assertEquals(100, queue.apply(0, 256));
+		assertEquals(0, this.applied.size());
+		assertEquals(156, queue.apply(100, 156));
+		assertEquals(Arrays.asList("a"), this.applied);
+	}
+
+
+	@Test
+	public void splitsBlocksAtEveryEventFrame() {
+		final List<Long> frames = new ArrayList<Long>();
+		final long[] position = new long[1];
+		EventQueue queue = new EventQueue();
+		for (final long frame : new long[] {300, 100, 256, 700, 100}) {
+			queue.add(new EventQueue.Event(frame) {
+				@Override
+				void apply() {
+					frames.add(position[0]);
+				}
+			});
+		}
+
+		// Rendering four blocks of 256 samples the way the engine does
+		List<Integer> pieces = new ArrayList<Integer>();
+		for (int block = 0; block < 4; block++) {
+			int done = 0;
+			while (done < 256) {
+				int count = queue.apply(position[0], 256 - done);
+				pieces.add(count);
+				done += count;
+				position[0] += count;
+			}
+		}
+
+		assertEquals(Arrays.asList(100L, 100L, 256L, 300L, 700L), frames);
+		assertEquals(Arrays.asList(100, 156, 44, 212, 188, 68, 256), pieces);
+	}
+}
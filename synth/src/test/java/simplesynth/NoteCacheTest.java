@@ -0,0 +1,180 @@
+package simplesynth;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+Tests the cache's LRU eviction by size, what its keys tell apart, and that cached notes
+render the same as synthesised ones
+**/
+
+public class NoteCacheTest {
+
+	private static final int SAMPLE_RATE = 48000;
+	private static final int CONTROL_RATE = 64;
+
+
+	private static NoteEvent note(Note note, double maxAmplitude) {
+		return new NoteEvent(note, 4, 0, 0.1, maxAmplitude, 0.01, 0.05, 60, 0.05, 20, 30, 50);
+	}
+
+
+	private static NoteCache.Key key(Note note) {
+		return new NoteCache.Key(note(note, 50), 4800, SAMPLE_RATE, CONTROL_RATE, OscillatorType.STANDARD);
+	}
+
+
+	@Test
+	public void evictsTheLeastRecentlyUsedNotesOnceFull() {
+		NoteCache cache = new NoteCache(3 * 100 * Float.BYTES);
+		float[] c = new float[100], d = new float[100], e = new float[100];
+		cache.put(key(Note.C), c);
+		cache.put(key(Note.D), d);
+		cache.put(key(Note.E), e);
+		assertSame(c, cache.get(key(Note.C))); // C is now the most recently used
+
+		cache.put(key(Note.F), new float[100]);
+
+		assertNull(cache.get(key(Note.D)));
+		assertSame(c, cache.get(key(Note.C)));
+		assertSame(e, cache.get(key(Note.E)));
+		assertEquals(3, cache.getNoteCount());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(3 * 100 * Float.BYTES, cache.getBytes());
+	}
+
+
+	@Test
+	public void evictsByBytesRatherThanNotes() {
+		NoteCache cache = new NoteCache(1000 * Float.BYTES);
+		cache.put(key(Note.C), new float[400]);
+		cache.put(key(Note.D), new float[400]);
+
+		cache.put(key(Note.E), new float[900]);
+
+		assertEquals(1, cache.getNoteCount());
+		assertEquals(2, cache.getEvictionCount());
+		assertEquals(900 * Float.BYTES, cache.getBytes());
+	}
+
+
+	@Test
+	public void skipsNotesLargerThanTheCache() {
+		NoteCache cache = new NoteCache(100 * Float.BYTES);
+		cache.put(key(Note.C), new float[50]);
+
+		cache.put(key(Note.D), new float[101]);
+
+		assertNull(cache.get(key(Note.D)));
+		assertEquals(1, cache.getNoteCount());
+		assertEquals(50 * Float.BYTES, cache.getBytes());
+		assertEquals(100, cache.getMaxFrames());
+	}
+
+
+	@Test
+	public void countsReplacedNotesOnce() {
+		NoteCache cache = new NoteCache(1000 * Float.BYTES);
+		cache.put(key(Note.C), new float[300]);
+		cache.put(key(Note.C), new float[200]);
+
+		assertEquals(1, cache.getNoteCount());
+		assertEquals(200 * Float.BYTES, cache.getBytes());
+	}
+
+
+	@Test
+	public void keysIgnoreMaxAmplitudeOnly() {
+		NoteCache.Key key = key(Note.C);
+
+		assertEquals(key, new NoteCache.Key(note(Note.C, 90), 4800, SAMPLE_RATE, CONTROL_RATE, OscillatorType.STANDARD));
+		assertEquals(key.hashCode(),
+				new NoteCache.Key(note(Note.C, 90), 4800, SAMPLE_RATE, CONTROL_RATE, OscillatorType.STANDARD).hashCode());
+
+		assertNotEquals(key, key(Note.D));
+		assertNotEquals(key, new NoteCache.Key(note(Note.C, 50), 4801, SAMPLE_RATE, CONTROL_RATE, OscillatorType.STANDARD));
+		assertNotEquals(key, new NoteCache.Key(note(Note.C, 50), 4800, 44100, CONTROL_RATE, OscillatorType.STANDARD));
+		assertNotEquals(key, new NoteCache.Key(note(Note.C, 50), 4800, SAMPLE_RATE, 32, OscillatorType.STANDARD));
+		assertNotEquals(key, new NoteCache.Key(note(Note.C, 50), 4800, SAMPLE_RATE, CONTROL_RATE, OscillatorType.BAND_LIMITED));
+	}
+
+
+	@Test
+	public void rendersCachedNotesLikeSynthesisedOnes() throws Exception {
+		List<NoteEvent> events = new ArrayList<NoteEvent>();
+		for (int i = 0; i < 6; i++) {
+			// The same note at different loudness, overlapping another note, each finished before it repeats
+			events.add(new NoteEvent(Note.A, 4, i * 0.2, 0.1, 20 + i * 10, 0.01, 0.05, 60, 0.05, 20, 30, 50));
+			events.add(new NoteEvent(Note.E, 5, i * 0.2 + 0.02, 0.03, 40, 0.01, 0.05, 60, 0.05, 50, 0, 50));
+		}
+
+		NoteCache cache = new NoteCache(1 << 20);
+		float[] synthesised = render(events, null);
+		float[] cached = render(events, cache);
+
+		assertEquals(10, cache.getHitCount());
+		assertEquals(synthesised.length, cached.length);
+		for (int i = 0; i < synthesised.length; i++) {
+			assertEquals(synthesised[i], cached[i], 1e-6, "sample " + i);
+		}
+		assertArrayEquals(cached, render(events, cache));
+	}
+
+
+	private static float[] render(List<NoteEvent> events, NoteCache cache) throws Exception {
+		MemorySink sink = new MemorySink();
+		new OfflineRenderer(LatencyProfile.BALANCED, OscillatorType.STANDARD, SampleFormat.PCM_FLOAT_32, cache)
+				.render(events, sink);
+		return sink.toArray();
+	}
+
+
+	/**
+	Keeps the samples written to it, at the balanced profile's sample rate
+	**/
+	private static class MemorySink implements PcmSink {
+
+		private final List<Float> samples = new ArrayList<Float>();
+
+		@Override
+		public void write(FloatBuffer buffer) {
+			while (buffer.hasRemaining()) this.samples.add(buffer.get());
+		}
+
+		@Override
+		public void write(ByteBuffer pcm) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public AudioFormat getFormat() {
+			return SampleFormat.PCM_FLOAT_32.toAudioFormat(LatencyProfile.BALANCED.getSampleRate(), 1, false);
+		}
+
+		float[] toArray() {
+			float[] array = new float[this.samples.size()];
+			for (int i = 0; i < array.length; i++) array[i] = this.samples.get(i);
+			return array;
+		}
+	}
+}
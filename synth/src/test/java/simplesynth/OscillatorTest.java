@@ -0,0 +1,47 @@
+package simplesynth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+Tests that every kind of oscillator keeps its phase within the period, even when the
+phase moves by more than a period each sample
+**/
+
+public class OscillatorTest {
+
+	private static final int SAMPLE_RATE = 48000;
+
+
+	@Test
+	public void rendersFrequenciesAboveTheSampleRate() {
+		float[] out = new float[256];
+		for (OscillatorType type : OscillatorType.values()) {
+			for (Waveform waveform : Waveform.values()) {
+				Oscillator osc = type.create(waveform, SAMPLE_RATE);
+				osc.setAmplitude(1);
+				for (double freq : new double[] { SAMPLE_RATE * 1.25, SAMPLE_RATE * 3.7, SAMPLE_RATE }) {
+					osc.setFreq(freq);
+					osc.render(out, 0, out.length);
+					String name = type + " " + waveform + " at " + freq + " Hz";
+					for (float sample : out) {
+						assertTrue(Float.isFinite(sample), name + " gave " + sample);
+					}
+					assertTrue(osc.phase >= 0 && osc.phase < 1, name + " left its phase at " + osc.phase);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	public void wrapsTablePhasesOutsideThePeriod() {
+		Wavetable table = Wavetable.get(Waveform.SINE);
+		for (double phase : new double[] { 0.1, 0.25, 0.6 }) {
+			assertEquals(table.linear(phase), table.linear(phase + 3), 1e-5f);
+			assertEquals(table.cubic(phase), table.cubic(phase - 2), 1e-5f);
+		}
+	}
+}
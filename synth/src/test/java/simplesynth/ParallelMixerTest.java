@@ -0,0 +1,104 @@
+package simplesynth;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+Tests that mixing on several threads gives the same samples as mixing on one, and that
+a voice failing on a worker is thrown on the render thread
+**/
+
+public class ParallelMixerTest {
+
+	private static final int SAMPLE_RATE = 48000;
+	private static final int BLOCK = 256;
+	private static final int BLOCKS = 40;
+
+
+	/**
+	@return voices playing a chord, each on a different key
+	**/
+	private static Voice[] voices(int count) {
+		Voice[] voices = new Voice[count];
+		for (int i = 0; i < count; i++) {
+			voices[i] = new Voice(OscillatorType.STANDARD.create(Waveform.SAWTOOTH, SAMPLE_RATE), SAMPLE_RATE);
+			voices[i].noteOn(60 + i, 220.0 * (i + 2) / 2, 20, 0.01, 0.05, 60, 0.05);
+		}
+		return voices;
+	}
+
+
+	/**
+	@return the samples of every block the mixer renders from the voices
+	**/
+	private static float[] mix(int threads, int voiceCount) {
+		Voice[] voices = voices(voiceCount);
+		ParallelMixer mixer = new ParallelMixer(threads, voiceCount);
+		float[] out = new float[BLOCK * BLOCKS];
+		try {
+			for (int block = 0; block < BLOCKS; block++) {
+				mixer.mix(voices, out, block * BLOCK, BLOCK);
+			}
+		} finally {
+			mixer.close();
+		}
+		return out;
+	}
+
+
+	@Test
+	public void matchesOneThreadExactlyWithAVoicePerThread() {
+		// With one voice in each partition the partitions are summed in the same order as one thread sums the voices
+		assertArrayEquals(mix(1, 4), mix(4, 4));
+	}
+
+
+	@Test
+	public void givesTheSameSamplesOnEveryRun() {
+		float[] first = mix(3, 8);
+		for (int run = 0; run < 5; run++) {
+			assertArrayEquals(first, mix(3, 8));
+		}
+
+		// Partitions of several voices are summed in a different order to one thread, so only round-off differs
+		float[] single = mix(1, 8);
+		for (int i = 0; i < single.length; i++) {
+			assertEquals(single[i], first[i], 1e-5f);
+		}
+	}
+
+
+	@Test
+	public void throwsAWorkersFailureWithoutHanging() {
+		final IllegalStateException failure = new IllegalStateException("voice failed");
+		final Voice[] voices = voices(2);
+		voices[1] = new Voice(OscillatorType.STANDARD.create(Waveform.SAWTOOTH, SAMPLE_RATE), SAMPLE_RATE) {
+			@Override
+			public int mix(float[] out, int offset, int length) {
+				throw failure;
+			}
+		};
+		voices[1].noteOn(61, 330, 20, 0.01, 0.05, 60, 0.05); // Active, so it is dealt to the worker's partition
+
+		final ParallelMixer mixer = new ParallelMixer(2, voices.length);
+		try {
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+				assertSame(failure, assertThrows(IllegalStateException.class,
+						() -> mixer.mix(voices, new float[BLOCK], 0, BLOCK)));
+
+				// The failure is not thrown again, and the next block renders
+				voices[1].cancel();
+				mixer.mix(voices, new float[BLOCK], 0, BLOCK);
+			});
+		} finally {
+			mixer.close();
+		}
+	}
+}
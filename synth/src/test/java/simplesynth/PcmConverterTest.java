@@ -0,0 +1,143 @@
+package simplesynth;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+Tests clipping, soft limiting and byte order of each sample format, and that the array
+and buffer conversions give the same bytes
+**/
+
+public class PcmConverterTest {
+
+	private static byte[] convert(PcmConverter converter, float... samples) {
+		byte[] out = new byte[samples.length * converter.getFormat().getBytesPerSample()];
+		assertEquals(out.length, converter.convert(samples, 0, samples.length, out, 0));
+		return out;
+	}
+
+
+	private static byte[] bytes(int... values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++) bytes[i] = (byte) values[i];
+		return bytes;
+	}
+
+
+	@Test
+	public void hardClipsSamplesOutsideFullScale() {
+		PcmConverter converter = new PcmConverter(SampleFormat.PCM_16, true, false);
+
+		assertArrayEquals(bytes(0x7F, 0xFF, 0x80, 0x01, 0x7F, 0xFF, 0x80, 0x01),
+				convert(converter, 1.5f, -1.5f, 1.0f, -1.0f));
+	}
+
+
+	@Test
+	public void writes16BitSamplesInEitherByteOrder() {
+		// 0.5 and -0.5 of 32767 round to 16384 and -16383, 0x4000 and 0xC001
+		assertArrayEquals(bytes(0x00, 0x40, 0x01, 0xC0),
+				convert(new PcmConverter(SampleFormat.PCM_16, false, false), 0.5f, -0.5f));
+		assertArrayEquals(bytes(0x40, 0x00, 0xC0, 0x01),
+				convert(new PcmConverter(SampleFormat.PCM_16, true, false), 0.5f, -0.5f));
+	}
+
+
+	@Test
+	public void writes24BitSamplesInEitherByteOrder() {
+		assertArrayEquals(bytes(0x01, 0x00, 0x80, 0xFF, 0xFF, 0x7F),
+				convert(new PcmConverter(SampleFormat.PCM_24, false, false), -1.0f, 2.0f));
+		assertArrayEquals(bytes(0x80, 0x00, 0x01, 0x7F, 0xFF, 0xFF),
+				convert(new PcmConverter(SampleFormat.PCM_24, true, false), -1.0f, 2.0f));
+	}
+
+
+	@Test
+	public void writesFloatSamplesInEitherByteOrder() {
+		// 0.25 is 0x3E800000, and samples past full scale are clipped to 1.0, 0x3F800000
+		assertArrayEquals(bytes(0x00, 0x00, 0x80, 0x3E, 0x00, 0x00, 0x80, 0x3F),
+				convert(new PcmConverter(SampleFormat.PCM_FLOAT_32, false, false), 0.25f, 3.0f));
+		assertArrayEquals(bytes(0x3E, 0x80, 0x00, 0x00, 0x3F, 0x80, 0x00, 0x00),
+				convert(new PcmConverter(SampleFormat.PCM_FLOAT_32, true, false), 0.25f, 3.0f));
+	}
+
+
+	@Test
+	public void softLimitsOnlyLoudSamples() {
+		PcmConverter converter = new PcmConverter(SampleFormat.PCM_16, true, true);
+
+		// Below the knee the sample is unchanged
+		assertArrayEquals(convert(new PcmConverter(SampleFormat.PCM_16, true, false), 0.5f, -0.7f),
+				convert(converter, 0.5f, -0.7f));
+
+		// Full scale is rounded off, well short of the 32767 it would be clipped to
+		short fullScale = ByteBuffer.wrap(convert(converter, 1.0f)).getShort();
+		assertTrue(fullScale > 30000 && fullScale < 31500, "full scale " + fullScale);
+
+		// Above the knee samples never go past full scale, and louder samples are never quieter
+		short previous = 0;
+		for (float x = 0.8f; x < 10; x += 0.1f) {
+			short sample = ByteBuffer.wrap(convert(converter, x)).getShort();
+			assertTrue(sample > 0, "sample " + x); // Going past full scale would wrap round to negative
+			assertTrue(sample >= previous, "sample " + x);
+			previous = sample;
+
+			short negative = ByteBuffer.wrap(convert(converter, -x)).getShort();
+			assertEquals(-sample, negative, "sample " + -x);
+		}
+	}
+
+
+	@Test
+	public void convertsBuffersLikeArrays() {
+		Random random = new Random(1);
+		float[] samples = new float[301];
+		for (int i = 0; i < samples.length; i++) samples[i] = (random.nextFloat() - 0.5f) * 3;
+
+		for (SampleFormat format : SampleFormat.values()) {
+			for (boolean bigEndian : new boolean[] {false, true}) {
+				for (boolean softLimit : new boolean[] {false, true}) {
+					PcmConverter converter = new PcmConverter(format, bigEndian, softLimit);
+					byte[] expected = convert(converter, samples);
+
+					// Converting into a direct buffer whose own order is the opposite one
+					ByteOrder order = bigEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+					ByteBuffer out = ByteBuffer.allocateDirect(expected.length).order(order);
+					FloatBuffer in = FloatBuffer.wrap(samples);
+					assertEquals(samples.length, converter.convert(in, out));
+
+					byte[] actual = new byte[expected.length];
+					out.flip();
+					out.get(actual);
+					String name = format + (bigEndian ? " big endian" : " little endian") + (softLimit ? " soft" : " hard");
+					assertArrayEquals(expected, actual, name);
+					assertEquals(order, out.order(), name);
+					assertEquals(0, in.remaining(), name);
+				}
+			}
+		}
+	}
+
+
+	@Test
+	public void stopsWhenTheBufferIsFull() {
+		PcmConverter converter = new PcmConverter(SampleFormat.PCM_24, false, false);
+		float[] samples = new float[10];
+		Arrays.fill(samples, 0.5f);
+		FloatBuffer in = FloatBuffer.wrap(samples);
+		ByteBuffer out = ByteBuffer.allocate(3 * 4 + 2); // Room for four samples and part of a fifth
+
+		assertEquals(4, converter.convert(in, out));
+		assertEquals(4, in.position());
+		assertEquals(12, out.position());
+	}
+}
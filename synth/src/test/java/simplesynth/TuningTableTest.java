@@ -0,0 +1,154 @@
+package simplesynth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+Tests the tables built from equal temperament and Scala scales, keys outside the MIDI range
+and keys above the Nyquist frequency
+**/
+
+public class TuningTableTest {
+
+	private static final double TOLERANCE = 1e-9;
+	private static final int SAMPLE_RATE = 48000;
+
+	private static final String JUST_SCALE = "! just.scl\n"
+			+ "!\n"
+			+ "Five limit just intonation\n"
+			+ " 12\n"
+			+ "!\n"
+			+ " 16/15\n 9/8\n 6/5\n 5/4\n 4/3\n 45/32\n 3/2 perfect fifth\n 8/5\n 5/3\n 9/5\n 15/8\n 2/1\n";
+
+
+	private static TuningTable scala(String scale) throws IOException {
+		return TuningTable.fromScala(new StringReader(scale), SAMPLE_RATE, 60, 261.6256);
+	}
+
+
+	@Test
+	public void equalTemperamentPutsA4OnItsReferencePitch() {
+		TuningTable table = TuningTable.equalTemperament(SAMPLE_RATE, 432);
+
+		assertEquals(432, table.getFrequency(TuningTable.A4_KEY), TOLERANCE);
+		assertEquals(216, table.getFrequency(TuningTable.A4_KEY - 12), TOLERANCE);
+		assertEquals(432 * Math.pow(2, 3 / 12.0), table.getFrequency(72), TOLERANCE);
+		assertEquals(432.0 / SAMPLE_RATE, table.getPhaseIncrement(TuningTable.A4_KEY), TOLERANCE);
+	}
+
+
+	@Test
+	public void notesUseStandardPitch() {
+		assertEquals(440, Note.A.getFreq(4), TOLERANCE);
+		assertEquals(261.6255653, Note.C.getFreq(4), 1e-6);
+	}
+
+
+	@Test
+	public void playsKeysOutsideTheMidiRangeByOctaves() {
+		TuningTable table = TuningTable.equalTemperament(SAMPLE_RATE);
+
+		for (int key = -30; key < 160; key++) {
+			double expected = TuningTable.A4_FREQ * Math.pow(2, (key - TuningTable.A4_KEY) / 12.0);
+			double increment = Math.min(expected / SAMPLE_RATE, 0.5); // Keys above the Nyquist frequency are held at it
+			assertEquals(expected, table.getFrequency(key), expected * 1e-12, "key " + key);
+			assertEquals(increment, table.getPhaseIncrement(key), expected * 1e-12, "key " + key);
+		}
+	}
+
+
+	@Test
+	public void extendsScalesOutsideTheMidiRangeFromTheirEdgeKeys() throws IOException {
+		TuningTable table = scala(JUST_SCALE);
+
+		assertEquals(2 * table.getFrequency(116), table.getFrequency(128), TOLERANCE);
+		assertEquals(4 * table.getFrequency(116), table.getFrequency(140), TOLERANCE);
+		assertEquals(table.getFrequency(11) / 2, table.getFrequency(-1), TOLERANCE);
+		assertEquals(table.getFrequency(0) / 2, table.getFrequency(-12), TOLERANCE);
+		assertEquals(table.getFrequency(11) / 4, table.getFrequency(-13), TOLERANCE);
+	}
+
+
+	@Test
+	public void readsScalaRatios() throws IOException {
+		TuningTable table = scala(JUST_SCALE);
+
+		assertEquals("Five limit just intonation", table.getDescription());
+		assertEquals(261.6256, table.getFrequency(60), TOLERANCE);
+		assertEquals(261.6256 * 3 / 2, table.getFrequency(67), TOLERANCE);
+		assertEquals(261.6256 * 5 / 4 * 2, table.getFrequency(76), TOLERANCE);
+		assertEquals(261.6256 * 15 / 8 / 2, table.getFrequency(59), TOLERANCE);
+	}
+
+
+	@Test
+	public void readsScalaCentsAndWholeNumberRatios() throws IOException {
+		// A three note scale repeating at the octave, with the period as a whole number
+		TuningTable table = scala("Three\n3\n300.0\n700.\n2\n");
+
+		assertEquals(261.6256 * Math.pow(2, 300 / 1200.0), table.getFrequency(61), TOLERANCE);
+		assertEquals(261.6256 * Math.pow(2, 700 / 1200.0), table.getFrequency(62), TOLERANCE);
+		assertEquals(261.6256 * 2, table.getFrequency(63), TOLERANCE);
+		assertEquals(261.6256 / 2, table.getFrequency(57), TOLERANCE);
+	}
+
+
+	@Test
+	public void rejectsBrokenScalaScales() {
+		String[] broken = {
+				"",
+				"! only a comment\n",
+				"No count\n",
+				"Bad count\nmany\n",
+				"Missing degrees\n2\n3/2\n",
+				"Negative ratio\n1\n-3/2\n",
+				"Bad ratio\n1\n3/x\n",
+				"No period\n0\n",
+				"Period below unison\n1\n-100.0\n" };
+		for (String scale : broken) {
+			assertThrows(IOException.class, () -> scala(scale), scale);
+		}
+	}
+
+
+	@Test
+	public void checksFrequencyTables() {
+		assertThrows(IllegalArgumentException.class,
+				() -> TuningTable.fromFrequencies("short", new double[12], SAMPLE_RATE));
+
+		double[] frequencies = new double[TuningTable.KEY_COUNT];
+		Arrays.fill(frequencies, 100);
+		frequencies[3] = 0;
+		assertThrows(IllegalArgumentException.class,
+				() -> TuningTable.fromFrequencies("zero", frequencies, SAMPLE_RATE));
+	}
+
+
+	@Test
+	public void movesTablesToAnotherSampleRate() {
+		TuningTable table = TuningTable.equalTemperament(SAMPLE_RATE);
+		TuningTable moved = table.withSampleRate(44100);
+
+		assertSame(table, table.withSampleRate(SAMPLE_RATE));
+		assertEquals(table.getFrequency(60), moved.getFrequency(60), TOLERANCE);
+		assertEquals(table.getFrequency(60) / 44100, moved.getPhaseIncrement(60), TOLERANCE);
+	}
+
+
+	@Test
+	public void holdsKeysAboveTheNyquistFrequencyAtIt() {
+		TuningTable table = TuningTable.equalTemperament(SAMPLE_RATE).withSampleRate(8000);
+
+		assertEquals(12543.85, table.getFrequency(127), 0.01); // Kept, the tuning is unchanged
+		assertEquals(0.5, table.getPhaseIncrement(127), TOLERANCE);
+		assertEquals(0.5, table.getPhaseIncrement(140), TOLERANCE);
+		assertEquals(table.getFrequency(60) / 8000, table.getPhaseIncrement(60), TOLERANCE);
+	}
+}
@@ -0,0 +1,60 @@
+package simplesynth;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+Tests that notes at a frequency are checked, and that keys are pitched by the engine's tuning
+**/
+
+public class VoiceEngineTest {
+
+	private static final int SAMPLE_RATE = 48000;
+
+
+	private static VoiceEngine engine() {
+		VoiceEngine engine = new VoiceEngine(4, VoiceStealingPolicy.OLDEST, SAMPLE_RATE);
+		engine.setIndividualAmplitudes(30, 30, 40);
+		return engine;
+	}
+
+
+	private static float[] render(VoiceEngine engine) {
+		float[] out = new float[4096];
+		engine.render(out, 0, out.length);
+		engine.close();
+		return out;
+	}
+
+
+	@Test
+	public void rejectsFrequenciesThatAreNotPositiveAndFinite() {
+		VoiceEngine engine = engine();
+		for (double freq : new double[] { Double.NaN, 0, -440, Double.POSITIVE_INFINITY }) {
+			assertThrows(IllegalArgumentException.class, () -> engine.noteOn(60, freq, 50, 0.01, 0.05, 60, 0.05));
+		}
+		engine.close();
+	}
+
+
+	@Test
+	public void pitchesKeysByTheTuning() {
+		TuningTable tuning = TuningTable.equalTemperament(SAMPLE_RATE, 432);
+
+		VoiceEngine tuned = engine();
+		tuned.setTuning(tuning);
+		tuned.keyOn(64, 50, 0.01, 0.05, 60, 0.05);
+
+		VoiceEngine fixed = engine();
+		fixed.noteOn(64, tuning.getFrequency(64), 50, 0.01, 0.05, 60, 0.05);
+
+		float[] out = render(tuned);
+		assertNotEquals(0, out[out.length - 1]); // Still playing
+		assertArrayEquals(render(fixed), out);
+	}
+}
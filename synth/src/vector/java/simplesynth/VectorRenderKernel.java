@@ -0,0 +1,229 @@
+package simplesynth;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+VectorRenderKernel renders as many samples per instruction as the CPU's vector registers hold,
+using the incubating Vector API. Each lane holds the phase of one sample, and every lane is moved
+on by a whole vector of samples at once, so the lanes do not depend on each other. The sine wave 
+uses a polynomial in place of Math.sin, and the lanes' phases are floats, so samples differ from 
+the scalar backend by a few millionths of full scale, well below the resolution of 16 bit samples.
+Only operations between whole vectors are used, as operations mixing vectors and single floats
+are not all compiled to vector instructions.
+Only compiled by the vector profile, RenderBackend loads it if the Vector API module is present
+**/
+
+class VectorRenderKernel implements RenderKernel {
+	
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+	
+	// Samples between working out the lanes' phases from the double phase, 
+	// the phases are moved on by a float increment in between
+	private static final int ANCHOR_SAMPLES = 64;
+	
+	private static final FloatVector ZERO = FloatVector.zero(SPECIES);
+	private static final FloatVector ONE = FloatVector.broadcast(SPECIES, 1f);
+	private static final FloatVector HALF = FloatVector.broadcast(SPECIES, 0.5f);
+	private static final FloatVector QUARTER = FloatVector.broadcast(SPECIES, 0.25f);
+	
+	// Floats of this size or more have no fractional part
+	private static final FloatVector ROUNDING = FloatVector.broadcast(SPECIES, 1 << 23);
+	
+	// Taylor series of sin(2 pi x) up to x^11, accurate for x between -0.25 and 0.25
+	private static final float S1 = (float) (2 * Math.PI);
+	private static final float S3 = (float) (-Math.pow(2 * Math.PI, 3) / 6);
+	private static final float S5 = (float) (Math.pow(2 * Math.PI, 5) / 120);
+	private static final float S7 = (float) (-Math.pow(2 * Math.PI, 7) / 5040);
+	private static final float S9 = (float) (Math.pow(2 * Math.PI, 9) / 362880);
+	private static final float S11 = (float) (-Math.pow(2 * Math.PI, 11) / 39916800);
+	
+	private static final FloatVector V1 = FloatVector.broadcast(SPECIES, S1);
+	private static final FloatVector V3 = FloatVector.broadcast(SPECIES, S3);
+	private static final FloatVector V5 = FloatVector.broadcast(SPECIES, S5);
+	private static final FloatVector V7 = FloatVector.broadcast(SPECIES, S7);
+	private static final FloatVector V9 = FloatVector.broadcast(SPECIES, S9);
+	private static final FloatVector V11 = FloatVector.broadcast(SPECIES, S11);
+	
+	private final FloatVector lanes; // The index of each lane (0, 1, 2 ...)
+	
+	
+	/**
+	Constructor for VectorRenderKernel
+	@throws UnsupportedOperationException if the CPU cannot render more than one sample per instruction
+	**/
+	VectorRenderKernel() {
+		
+		if (LANES < 2) throw new UnsupportedOperationException("No vector registers for floats");
+		
+		float[] index = new float[LANES];
+		for (int i = 0; i < LANES; i++) index[i] = i;
+		this.lanes = FloatVector.fromArray(SPECIES, index, 0);
+	}
+	
+	
+	@Override
+	public double sine(float[] out, int offset, int length, double phase, double increment, double amplitude) {
+		FloatVector amp = FloatVector.broadcast(SPECIES, (float) -amplitude);
+		FloatVector steps = this.lanes.mul((float) increment);
+		FloatVector stride = FloatVector.broadcast(SPECIES, (float) (increment * LANES));
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		
+		for (int anchor = 0; anchor < bound; anchor += ANCHOR_SAMPLES) {
+			FloatVector p = phases(steps, phase, increment, anchor);
+			int end = Math.min(anchor + ANCHOR_SAMPLES, bound);
+			
+			for (i = anchor; i < end; i += LANES) {
+				// The polynomial gives -sin(2 pi p)
+				negativeSine(p).mul(amp).intoArray(out, offset + i);
+				p = fraction(p.add(stride));
+			}
+		}
+		for (; i < length; i++) {
+			out[offset + i] = (float) (negativeSine((float) phaseAt(phase, increment, i)) * -amplitude);
+		}
+		return phaseAt(phase, increment, length);
+	}
+	
+	
+	@Override
+	public double sawtooth(float[] out, int offset, int length, double phase, double increment, double amplitude) {
+		FloatVector amp = FloatVector.broadcast(SPECIES, (float) (amplitude * 2));
+		FloatVector steps = this.lanes.mul((float) increment);
+		FloatVector stride = FloatVector.broadcast(SPECIES, (float) (increment * LANES));
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		
+		for (int anchor = 0; anchor < bound; anchor += ANCHOR_SAMPLES) {
+			FloatVector p = phases(steps, phase, increment, anchor);
+			int end = Math.min(anchor + ANCHOR_SAMPLES, bound);
+			
+			for (i = anchor; i < end; i += LANES) {
+				p.mul(amp).intoArray(out, offset + i);
+				p = fraction(p.add(stride));
+			}
+		}
+		for (; i < length; i++) {
+			out[offset + i] = (float) (phaseAt(phase, increment, i) * amplitude * 2);
+		}
+		return phaseAt(phase, increment, length);
+	}
+	
+	
+	@Override
+	public double square(float[] out, int offset, int length, double phase, double increment, double amplitude) {
+		FloatVector amp = FloatVector.broadcast(SPECIES, (float) amplitude);
+		FloatVector steps = this.lanes.mul((float) increment);
+		FloatVector stride = FloatVector.broadcast(SPECIES, (float) (increment * LANES));
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		
+		for (int anchor = 0; anchor < bound; anchor += ANCHOR_SAMPLES) {
+			FloatVector p = phases(steps, phase, increment, anchor);
+			int end = Math.min(anchor + ANCHOR_SAMPLES, bound);
+			
+			for (i = anchor; i < end; i += LANES) {
+				// High for the first half of each period, where the sine wave is positive
+				VectorMask<Float> high = p.compare(VectorOperators.GT, ZERO).and(p.compare(VectorOperators.LT, HALF));
+				ZERO.blend(amp, high).intoArray(out, offset + i);
+				p = fraction(p.add(stride));
+			}
+		}
+		for (; i < length; i++) {
+			double position = phaseAt(phase, increment, i);
+			out[offset + i] = (position > 0 && position < 0.5) ? (float) amplitude : 0;
+		}
+		return phaseAt(phase, increment, length);
+	}
+	
+	
+	@Override
+	public void multiplyAdd(float[] out, int offset, float[] in, float[] gains, int length) {
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		
+		for (; i < bound; i += LANES) {
+			FloatVector samples = FloatVector.fromArray(SPECIES, in, i);
+			FloatVector gain = FloatVector.fromArray(SPECIES, gains, i);
+			FloatVector sum = FloatVector.fromArray(SPECIES, out, offset + i);
+			samples.fma(gain, sum).intoArray(out, offset + i);
+		}
+		for (; i < length; i++) {
+			out[offset + i] += in[i] * gains[i];
+		}
+	}
+	
+	
+	/**
+	Works out the phase of each lane from the phase of the first lane, which is 
+	calculated as a double so float errors do not build up along the block
+	@param steps the distance of each lane's phase from the first lane's
+	@return the phase (0 to 1) of each of a vector of samples, starting at a sample in the block
+	**/
+	private static FloatVector phases(FloatVector steps, double phase, double increment, int sample) {
+		FloatVector first = FloatVector.broadcast(SPECIES, (float) phaseAt(phase, increment, sample));
+		return fraction(steps.add(first));
+	}
+	
+	
+	/**
+	@return the phase (0 to 1) of a sample in the block
+	**/
+	private static double phaseAt(double phase, double increment, int sample) {
+		double p = phase + increment * sample;
+		return p - Math.floor(p);
+	}
+	
+	
+	/**
+	@param p phases, 0 or more
+	@return the fractional part of each phase
+	**/
+	private static FloatVector fraction(FloatVector p) {
+		// Adding and subtracting 2^23 rounds to the nearest whole number, which is then rounded down
+		FloatVector whole = p.add(ROUNDING).sub(ROUNDING);
+		whole = whole.sub(ZERO.blend(ONE, whole.compare(VectorOperators.GT, p)));
+		return p.sub(whole);
+	}
+	
+	
+	/**
+	@param p phases (0 to 1)
+	@return -sin(2 pi p) for each phase
+	**/
+	private static FloatVector negativeSine(FloatVector p) {
+		// -sin(2 pi p) = sin(2 pi x) where x is -0.5 to 0.5
+		FloatVector x = p.sub(HALF);
+		// Folding x into -0.25 to 0.25, as sin(2 pi x) = sin(2 pi (0.5 - x)) = sin(2 pi (-0.5 - x))
+		x = x.blend(HALF.sub(x), x.compare(VectorOperators.GT, QUARTER));
+		x = x.blend(HALF.neg().sub(x), x.compare(VectorOperators.LT, QUARTER.neg()));
+		
+		FloatVector x2 = x.mul(x);
+		FloatVector poly = x2.fma(V11, V9);
+		poly = poly.fma(x2, V7);
+		poly = poly.fma(x2, V5);
+		poly = poly.fma(x2, V3);
+		poly = poly.fma(x2, V1);
+		return poly.mul(x);
+	}
+	
+	
+	/**
+	The same polynomial as the vector sine, for the samples left over at the end of a block
+	@param p phase (0 to 1)
+	@return -sin(2 pi p)
+	**/
+	private static float negativeSine(float p) {
+		float x = p - 0.5f;
+		if (x > 0.25f) x = 0.5f - x;
+		if (x < -0.25f) x = -0.5f - x;
+		
+		float x2 = x * x;
+		float poly = ((((S11 * x2 + S9) * x2 + S7) * x2 + S5) * x2 + S3) * x2 + S1;
+		return poly * x;
+	}
+}